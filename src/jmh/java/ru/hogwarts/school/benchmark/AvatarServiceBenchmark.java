@@ -0,0 +1,79 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+import ru.hogwarts.school.cache.AvatarContentCache;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.reposirory.StudentRepository;
+import ru.hogwarts.school.service.AvatarService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploading one avatar and reading it back, from the content cache and with the cache evicted first,
+ * for each {@code avatar.storage.mode}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AvatarServiceBenchmark {
+    @Param("1000")
+    public int datasetSize;
+    @Param("16384")
+    public int avatarSize;
+    @Param({"filesystem", "database", "tiered"})
+    public String storageMode;
+
+    private ConfigurableApplicationContext context;
+    private AvatarService avatarService;
+    private AvatarContentCache avatarContentCache;
+    private MockMultipartFile upload;
+    private Long studentId;
+    private Avatar avatar;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start("avatars-" + storageMode, datasetSize, "--avatar.storage.mode=" + storageMode);
+        avatarService = context.getBean(AvatarService.class);
+        avatarContentCache = context.getBean(AvatarContentCache.class);
+        byte[] content = new byte[avatarSize];
+        new Random(42).nextBytes(content);
+        upload = new MockMultipartFile("multipartFile", "avatar.png", "image/png", content);
+        studentId = context.getBean(StudentRepository.class).findAll().get(0).getId();
+        avatar = avatarService.getById(avatarService.save(studentId, upload));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long save() throws IOException {
+        return avatarService.save(studentId, upload);
+    }
+
+    @Benchmark
+    public int serveCached() throws IOException {
+        return read(avatarService.getContent(avatar).getInputStream());
+    }
+
+    @Benchmark
+    public int serve() throws IOException {
+        avatarContentCache.evict(avatar.getId());
+        return read(avatarService.getContent(avatar).getInputStream());
+    }
+
+    private static int read(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes().length;
+        }
+    }
+}
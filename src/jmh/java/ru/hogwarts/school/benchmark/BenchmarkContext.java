@@ -0,0 +1,57 @@
+package ru.hogwarts.school.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.hogwarts.school.HogwartsApplication;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.reposirory.FacultyRepository;
+import ru.hogwarts.school.service.StudentImportService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application without a web server on its own in-memory H2 database and fills it
+ * with a generated dataset.
+ */
+final class BenchmarkContext {
+    static final int MIN_AGE = 17;
+    static final int AGE_SPREAD = 10;
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String name, int datasetSize, String... args) throws IOException {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "--spring.liquibase.enabled=false",
+                "--path.to.avatars.folder=target/benchmark-avatars/" + name,
+                "--logging.level.root=warn"));
+        arguments.addAll(List.of(args));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HogwartsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(String[]::new));
+        seed(context, datasetSize);
+        return context;
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int datasetSize) throws IOException {
+        List<Faculty> faculties = context.getBean(FacultyRepository.class).saveAll(List.of(
+                new Faculty(null, "Gryffindor", "red"),
+                new Faculty(null, "Hufflepuff", "yellow"),
+                new Faculty(null, "Ravenclaw", "blue"),
+                new Faculty(null, "Slytherin", "green")));
+        StringBuilder csv = new StringBuilder("name,age,facultyId\n");
+        for (int i = 0; i < datasetSize; i++) {
+            csv.append("Student ").append(i).append(',')
+                    .append(MIN_AGE + i % AGE_SPREAD).append(',')
+                    .append(faculties.get(i % faculties.size()).getId()).append('\n');
+        }
+        context.getBean(StudentImportService.class)
+                .importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+}
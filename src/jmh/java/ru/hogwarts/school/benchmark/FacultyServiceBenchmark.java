@@ -0,0 +1,40 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.service.FacultyService;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FacultyServiceBenchmark {
+    @Param("1000")
+    public int datasetSize;
+
+    private ConfigurableApplicationContext context;
+    private FacultyService facultyService;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start("faculties", datasetSize);
+        facultyService = context.getBean(FacultyService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<Faculty> getAllByNameOrColor() {
+        return facultyService.getAllByNameOrColor("ther");
+    }
+}
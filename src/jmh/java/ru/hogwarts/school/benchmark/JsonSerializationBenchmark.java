@@ -0,0 +1,82 @@
+package ru.hogwarts.school.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.hogwarts.school.dto.FacultyDto;
+import ru.hogwarts.school.dto.StudentDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writing a {@code GET /student} sized list of students, as the JSON message converter does, with plain
+ * reflective Jackson and with Blackbird, uncompressed and gzipped as Tomcat compresses it. The size of the
+ * payload each writes is reported next to its time as the {@code payloadBytes} counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonSerializationBenchmark {
+    @Param("1000")
+    public int datasetSize;
+    @Param({"reflection", "blackbird"})
+    public String serializer;
+
+    private ObjectWriter writer;
+    private List<StudentDto> students;
+
+    /**
+     * Holds the last payload's size; JMH reports an events counter as it stands at the end of each iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long payloadBytes;
+    }
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (serializer.equals("blackbird")) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        ObjectMapper objectMapper = builder.build();
+        JavaType type = objectMapper.getTypeFactory().constructCollectionType(Collection.class, StudentDto.class);
+        writer = objectMapper.writerFor(type);
+        List<FacultyDto> faculties = List.of(new FacultyDto(1L, "Gryffindor", "red"), new FacultyDto(2L, "Slytherin", "green"),
+                new FacultyDto(3L, "Ravenclaw", "blue"), new FacultyDto(4L, "Hufflepuff", "yellow"));
+        students = new ArrayList<>(datasetSize);
+        for (int i = 0; i < datasetSize; i++) {
+            students.add(new StudentDto((long) i + 1, "Student " + i, 11 + i % 7, faculties.get(i % faculties.size())));
+        }
+    }
+
+    @Benchmark
+    public byte[] identity(PayloadSize size) throws IOException {
+        byte[] payload = writer.writeValueAsBytes(students);
+        size.payloadBytes = payload.length;
+        return payload;
+    }
+
+    @Benchmark
+    public byte[] gzip(PayloadSize size) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            writer.writeValue(out, students);
+        }
+        size.payloadBytes = bytes.size();
+        return bytes.toByteArray();
+    }
+}
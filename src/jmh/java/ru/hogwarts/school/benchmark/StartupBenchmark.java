@@ -0,0 +1,99 @@
+package ru.hogwarts.school.benchmark;
+
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.hogwarts.school.HogwartsApplication;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restarting an instance, web server included, against a database that already has the schema and
+ * {@code datasetSize} students: with the default settings ({@code ddl-auto=update}, everything eager) and with
+ * the {@code prod} profile. Each fork is a fresh JVM that starts the application once, so the time includes
+ * class loading; the database is built in the same JVM beforehand with Liquibase, which both starts run again.
+ * <p>
+ * The AppCDS archive of the {@code cds} Maven profile needs its own jar and classpath and is not measured here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(5)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark {
+    @Param("1000")
+    public int datasetSize;
+    @Param({"default", "prod"})
+    public String profile;
+
+    private String url;
+    private Connection connection;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, LiquibaseException {
+        url = "jdbc:h2:mem:startup-" + profile;
+        connection = DriverManager.getConnection(url, "sa", "");
+        new Liquibase("liquibase/changelog-master.yml", new ClassLoaderResourceAccessor(),
+                DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection)))
+                .update(new Contexts());
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if (context != null) {
+            context.close();
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext start() {
+        context = new SpringApplicationBuilder(HogwartsApplication.class)
+                .profiles(profile)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--server.port=0",
+                        "--path.to.avatars.folder=target/benchmark-avatars/startup-" + profile,
+                        "--logging.level.root=warn");
+        return context;
+    }
+
+    private void seed() throws SQLException {
+        String[][] faculties = {{"Gryffindor", "red"}, {"Hufflepuff", "yellow"}, {"Ravenclaw", "blue"}, {"Slytherin", "green"}};
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into faculty (id, name, color, version) values (?, ?, ?, 0)")) {
+            for (int i = 0; i < faculties.length; i++) {
+                insert.setLong(1, i + 1);
+                insert.setString(2, faculties[i][0]);
+                insert.setString(3, faculties[i][1]);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into student (id, name, age, faculty_id, version) values (?, ?, ?, ?, 0)")) {
+            for (int i = 0; i < datasetSize; i++) {
+                insert.setLong(1, i + 1);
+                insert.setString(2, "Student " + i);
+                insert.setInt(3, BenchmarkContext.MIN_AGE + i % BenchmarkContext.AGE_SPREAD);
+                insert.setLong(4, i % faculties.length + 1);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+}
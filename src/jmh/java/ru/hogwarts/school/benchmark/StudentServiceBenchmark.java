@@ -0,0 +1,45 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.service.StudentService;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StudentServiceBenchmark {
+    @Param("1000")
+    public int datasetSize;
+
+    private ConfigurableApplicationContext context;
+    private StudentService studentService;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start("students", datasetSize);
+        studentService = context.getBean(StudentService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<StudentDto> getAll() {
+        return studentService.getAll();
+    }
+
+    @Benchmark
+    public Collection<StudentDto> getByAge() {
+        return studentService.getByAge(BenchmarkContext.MIN_AGE, BenchmarkContext.MIN_AGE + 1);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.hogwarts.school.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import ru.hogwarts.school.dto.AvatarCacheStatsDto;
+import ru.hogwarts.school.model.Avatar;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of avatar metadata and bytes, bounded by the total size of the cached images.
+ * Bytes are kept in direct buffers, so large images do not add to the heap the GC has to scan.
+ */
+@Component
+public class AvatarContentCache {
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public AvatarContentCache(@Value("${avatar.cache.max-size:64MB}") DataSize maxSize,
+                              @Value("${avatar.cache.max-entry-size:1MB}") DataSize maxEntrySize) {
+        this.maxBytes = maxSize.toBytes();
+        this.maxEntryBytes = Math.min(maxEntrySize.toBytes(), maxBytes);
+    }
+
+    public boolean accepts(long size) {
+        return size <= maxEntryBytes;
+    }
+
+    /**
+     * Returns the cached metadata without touching the hit/miss counters or the LRU order.
+     */
+    public synchronized Avatar peekAvatar(Long avatarId) {
+        Entry entry = entries.get(avatarId);
+        return entry == null ? null : entry.avatar;
+    }
+
+    public synchronized ByteBuffer getContent(Long avatarId) {
+        Entry entry = entries.get(avatarId);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.content.asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies {@code data} into a direct buffer and caches it together with the metadata.
+     */
+    public ByteBuffer put(Avatar avatar, byte[] data) {
+        ByteBuffer content = ByteBuffer.allocateDirect(data.length);
+        content.put(data).flip();
+        put(avatar, content);
+        return content.asReadOnlyBuffer();
+    }
+
+    public synchronized void put(Avatar avatar, ByteBuffer content) {
+        long size = content.remaining();
+        if (!accepts(size)) {
+            return;
+        }
+        Entry previous = entries.put(avatar.getId(), new Entry(avatar, content));
+        if (previous != null) {
+            usedBytes -= previous.content.remaining();
+        }
+        usedBytes += size;
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            usedBytes -= eldest.next().getValue().content.remaining();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void evict(Long avatarId) {
+        Entry removed = entries.remove(avatarId);
+        if (removed != null) {
+            usedBytes -= removed.content.remaining();
+        }
+    }
+
+    public synchronized AvatarCacheStatsDto getStats() {
+        return new AvatarCacheStatsDto(hits, misses, evictions, entries.size(), usedBytes, maxBytes);
+    }
+
+    private static class Entry {
+        private final Avatar avatar;
+        private final ByteBuffer content;
+
+        private Entry(Avatar avatar, ByteBuffer content) {
+            this.avatar = avatar;
+            this.content = content;
+        }
+    }
+}
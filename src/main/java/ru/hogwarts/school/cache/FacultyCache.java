@@ -0,0 +1,60 @@
+package ru.hogwarts.school.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.config.AfterCommit;
+import ru.hogwarts.school.dto.CacheRegionStatsDto;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.reposirory.FacultyRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Access to the Hibernate second-level cache regions that hold faculties.
+ */
+@Component
+public class FacultyCache {
+    private static final String ENTITY_REGION = Faculty.class.getName();
+    private static final String STUDENTS_REGION = Faculty.class.getName() + ".students";
+
+    private final SessionFactory sessionFactory;
+
+    public FacultyCache(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * Drops cached finder results once the current transaction commits. Hibernate already
+     * invalidates them on its own writes; this also covers changes it cannot see.
+     */
+    public void evictQueriesAfterCommit() {
+        evictQueries();
+        AfterCommit.run(this::evictQueries);
+    }
+
+    public void evict(Long facultyId) {
+        sessionFactory.getCache().evictEntityData(Faculty.class, facultyId);
+        sessionFactory.getCache().evictCollectionData(STUDENTS_REGION, facultyId);
+    }
+
+    public List<CacheRegionStatsDto> getStats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        List<CacheRegionStatsDto> stats = new ArrayList<>();
+        for (String region : List.of(ENTITY_REGION, STUDENTS_REGION, FacultyRepository.QUERY_CACHE_REGION)) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null) {
+                stats.add(new CacheRegionStatsDto(region, regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                        regionStatistics.getPutCount()));
+            }
+        }
+        return stats;
+    }
+
+    private void evictQueries() {
+        sessionFactory.getCache().evictQueryRegion(FacultyRepository.QUERY_CACHE_REGION);
+    }
+}
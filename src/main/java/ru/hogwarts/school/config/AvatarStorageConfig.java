@@ -0,0 +1,51 @@
+package ru.hogwarts.school.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.hogwarts.school.storage.AvatarStorage;
+import ru.hogwarts.school.storage.DatabaseAvatarStorage;
+import ru.hogwarts.school.storage.FileSystemAvatarStorage;
+import ru.hogwarts.school.storage.TieredAvatarStorage;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Both plain backends are always available, so images can be moved out of the one not in use;
+ * {@code avatar.storage.mode} picks the {@link AvatarStorage} the application reads and writes.
+ */
+@Configuration
+public class AvatarStorageConfig {
+
+    @Bean
+    public FileSystemAvatarStorage fileSystemAvatarStorage(@Value("${path.to.avatars.folder}") Path avatarPath) {
+        return new FileSystemAvatarStorage(avatarPath);
+    }
+
+    @Bean
+    public DatabaseAvatarStorage databaseAvatarStorage(JdbcTemplate jdbcTemplate) {
+        return new DatabaseAvatarStorage(jdbcTemplate);
+    }
+
+    @Bean
+    @Primary
+    public AvatarStorage avatarStorage(@Value("${avatar.storage.mode:filesystem}") String mode,
+                                       @Value("${avatar.storage.tiered.cold-after:30d}") Duration coldAfter,
+                                       @Value("${path.to.avatars.folder}") Path avatarPath,
+                                       FileSystemAvatarStorage fileSystemAvatarStorage,
+                                       DatabaseAvatarStorage databaseAvatarStorage) {
+        switch (mode) {
+            case "filesystem":
+                return fileSystemAvatarStorage;
+            case "database":
+                return databaseAvatarStorage;
+            case "tiered":
+                return new TieredAvatarStorage(fileSystemAvatarStorage, databaseAvatarStorage, coldAfter, avatarPath);
+            default:
+                throw new IllegalArgumentException("Unknown avatar.storage.mode: " + mode);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.hogwarts.school.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import ru.hogwarts.school.exception.BulkheadFullException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs at most {@code threads} handlers of one kind at a time, with up to {@code queueCapacity} more
+ * waiting; anything beyond that is rejected with 503 instead of queueing for a free worker.
+ * Handlers either run on the bulkhead's own pool, or on the calling thread between {@link #enter()}
+ * and {@link #leave()}, with the same limits.
+ */
+public class Bulkhead {
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final Counter rejected;
+
+    public Bulkhead(String name, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(name + "-"));
+        this.admitted = new Semaphore(threads + queueCapacity);
+        this.running = new Semaphore(threads, true);
+        this.rejected = Counter.builder("bulkhead.rejected").tag("name", name).register(meterRegistry);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, name);
+    }
+
+    public void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw full();
+        }
+    }
+
+    public void enter() {
+        if (!admitted.tryAcquire()) {
+            throw full();
+        }
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            admitted.release();
+            Thread.currentThread().interrupt();
+            throw full();
+        }
+    }
+
+    public void leave() {
+        running.release();
+        admitted.release();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private BulkheadFullException full() {
+        rejected.increment();
+        return new BulkheadFullException("Too many concurrent requests for " + name);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.hogwarts.school.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.hogwarts.school.dto.AvatarDto;
+import ru.hogwarts.school.dto.MultiGetDto;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.dto.StudentNameDto;
+import ru.hogwarts.school.model.Faculty;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Serializes responses through Blackbird, which replaces reflective getter calls with generated
+ * lambdas, and builds the serializers of the list responses at startup instead of on their first
+ * request. Jackson keeps serializers per declared type, so these are the ones the endpoints reuse.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public static Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public ApplicationRunner prefetchJsonWriters(ObjectMapper objectMapper) {
+        return args -> {
+            TypeFactory types = objectMapper.getTypeFactory();
+            List<JavaType> responseTypes = List.of(
+                    types.constructType(StudentDto.class),
+                    types.constructCollectionType(Collection.class, StudentDto.class),
+                    types.constructCollectionType(List.class, StudentDto.class),
+                    types.constructCollectionType(List.class, StudentNameDto.class),
+                    types.constructType(Faculty.class),
+                    types.constructCollectionType(Collection.class, Faculty.class),
+                    types.constructParametricType(MultiGetDto.class, StudentDto.class),
+                    types.constructParametricType(MultiGetDto.class, Faculty.class),
+                    types.constructCollectionType(List.class, AvatarDto.class));
+            responseTypes.forEach(objectMapper::writerFor);
+        };
+    }
+}
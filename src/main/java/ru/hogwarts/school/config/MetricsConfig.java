@@ -0,0 +1,20 @@
+package ru.hogwarts.school.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@code @Timed} on the service classes. Controller and repository calls are timed by Spring Boot
+ * as {@code http.server.requests} and {@code spring.data.repository.invocations}.
+ */
+@Configuration
+public class MetricsConfig {
+    public static final String SERVICE_TIMER = "hogwarts.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
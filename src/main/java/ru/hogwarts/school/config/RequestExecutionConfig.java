@@ -0,0 +1,175 @@
+package ru.hogwarts.school.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.hogwarts.school.controller.AvatarIo;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Where controller handlers run, chosen by {@code request.execution.mode}:
+ * <ul>
+ *     <li>{@code blocking} (default): on the Tomcat worker, as usual;</li>
+ *     <li>{@code async}: on a bounded pool, holding the request asynchronously, so the Tomcat worker is free
+ *     for other requests while the handler waits on JDBC or the disk.</li>
+ * </ul>
+ * In both modes {@link AvatarIo} handlers go through the {@code avatar.io} bulkhead, and the rest through
+ * {@code request.execution} in async mode. Handlers that already return an asynchronous type are left alone.
+ * <p>
+ * Java 11 has no virtual threads, so the async mode uses platform threads sized by
+ * {@code request.execution.threads} and {@code avatar.io.threads}.
+ */
+@Configuration
+public class RequestExecutionConfig implements WebMvcRegistrations {
+    private static final List<Class<?>> ASYNC_TYPES = List.of(Callable.class, DeferredResult.class, WebAsyncTask.class,
+            CompletionStage.class, ListenableFuture.class, StreamingResponseBody.class, ResponseBodyEmitter.class);
+
+    private final boolean async;
+    private final long timeoutMillis;
+    private final Bulkhead requests;
+    private final Bulkhead avatarIo;
+
+    public RequestExecutionConfig(@Value("${request.execution.mode:blocking}") String mode,
+                                  @Value("${request.execution.timeout:30s}") Duration timeout,
+                                  @Value("${request.execution.threads:32}") int threads,
+                                  @Value("${request.execution.queue-capacity:200}") int queueCapacity,
+                                  @Value("${avatar.io.threads:8}") int avatarIoThreads,
+                                  @Value("${avatar.io.queue-capacity:16}") int avatarIoQueueCapacity,
+                                  ObjectProvider<MeterRegistry> meterRegistries) {
+        switch (mode) {
+            case "blocking":
+                this.async = false;
+                break;
+            case "async":
+                this.async = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown request.execution.mode: " + mode);
+        }
+        this.timeoutMillis = timeout.toMillis();
+        // web slice tests run without the metrics auto-configuration
+        MeterRegistry meterRegistry = meterRegistries.getIfAvailable(SimpleMeterRegistry::new);
+        this.requests = new Bulkhead("request.execution", threads, queueCapacity, meterRegistry);
+        this.avatarIo = new Bulkhead("avatar.io", avatarIoThreads, avatarIoQueueCapacity, meterRegistry);
+    }
+
+    @Override
+    public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+        return new RequestMappingHandlerAdapter() {
+            @Override
+            protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+                if (returnsAsync(handlerMethod)) {
+                    return super.createInvocableHandlerMethod(handlerMethod);
+                }
+                boolean avatar = handlerMethod.hasMethodAnnotation(AvatarIo.class);
+                if (async) {
+                    return new OffloadedHandlerMethod(handlerMethod, avatar ? avatarIo : requests);
+                }
+                return avatar ? new GuardedHandlerMethod(handlerMethod, avatarIo) : super.createInvocableHandlerMethod(handlerMethod);
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        requests.shutdown();
+        avatarIo.shutdown();
+    }
+
+    private static boolean returnsAsync(HandlerMethod handlerMethod) {
+        ResolvableType type = ResolvableType.forMethodParameter(handlerMethod.getReturnType());
+        if (HttpEntity.class.isAssignableFrom(type.toClass())) {
+            type = type.getGeneric();
+        }
+        Class<?> returned = type.toClass();
+        return ASYNC_TYPES.stream().anyMatch(asyncType -> asyncType.isAssignableFrom(returned));
+    }
+
+    /**
+     * Runs the handler, including writing its response, on the calling thread inside the bulkhead.
+     */
+    private static class GuardedHandlerMethod extends ServletInvocableHandlerMethod {
+        private final Bulkhead bulkhead;
+
+        private GuardedHandlerMethod(HandlerMethod handlerMethod, Bulkhead bulkhead) {
+            super(handlerMethod);
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public void invokeAndHandle(ServletWebRequest webRequest, ModelAndViewContainer mavContainer,
+                                    Object... providedArgs) throws Exception {
+            bulkhead.enter();
+            try {
+                super.invokeAndHandle(webRequest, mavContainer, providedArgs);
+            } finally {
+                bulkhead.leave();
+            }
+        }
+    }
+
+    /**
+     * Resolves the arguments and calls the handler on the bulkhead's pool, and hands Spring MVC a
+     * {@link DeferredResult} to complete the request with. The response is written back on a Tomcat worker.
+     */
+    private class OffloadedHandlerMethod extends ServletInvocableHandlerMethod {
+        private final Bulkhead bulkhead;
+
+        private OffloadedHandlerMethod(HandlerMethod handlerMethod, Bulkhead bulkhead) {
+            super(handlerMethod);
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public Object invokeForRequest(NativeWebRequest request, ModelAndViewContainer mavContainer,
+                                       Object... providedArgs) {
+            DeferredResult<Object> result = new DeferredResult<>(timeoutMillis);
+            // the container marks the original request attributes inactive once this dispatch returns
+            HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+            HttpServletResponse servletResponse = request.getNativeResponse(HttpServletResponse.class);
+            ServletWebRequest offloaded = new ServletWebRequest(servletRequest, servletResponse);
+            LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+            bulkhead.execute(() -> {
+                // handlers may read the current request, e.g. through ServletUriComponentsBuilder.fromCurrentRequest()
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest, servletResponse));
+                LocaleContextHolder.setLocaleContext(localeContext);
+                try {
+                    result.setResult(super.invokeForRequest(offloaded, mavContainer, providedArgs));
+                } catch (Throwable e) {
+                    result.setErrorResult(e);
+                } finally {
+                    LocaleContextHolder.resetLocaleContext();
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            });
+            return result;
+        }
+    }
+}
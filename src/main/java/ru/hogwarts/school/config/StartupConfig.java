@@ -0,0 +1,64 @@
+package ru.hogwarts.school.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.MethodMetadata;
+
+import java.util.List;
+
+/**
+ * Startup settings of the {@code prod} profile. Beans declared in {@code startup.lazy-packages} (springdoc and
+ * Spring Data REST) wait for their first use, even those marked {@code @Lazy(false)}; the pools, Liquibase,
+ * Hibernate, caches and scheduled jobs still start eagerly, so a broken instance fails at startup and not on
+ * its first request. Their MVC configurers are still collected at startup and pull in what they depend on;
+ * the rest, such as the repository mappings and the OpenAPI scanner, is created by the first request to
+ * {@code /v3/api-docs} or a Data REST resource.
+ * <p>
+ * {@code startup.exit-after-ready} stops the application as soon as it is ready; the {@code cds} Maven profile
+ * uses it for the training run that records the AppCDS archive.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    @ConditionalOnProperty("startup.lazy-packages")
+    public static BeanFactoryPostProcessor lazyPackages(Environment environment) {
+        List<String> packages = List.of(environment.getRequiredProperty("startup.lazy-packages", String[].class));
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (inPackages(declaringClassName(definition), packages)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty("startup.exit-after-ready")
+    public ApplicationListener<ApplicationReadyEvent> exitAfterReady() {
+        return event -> System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+
+    private static String declaringClassName(BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition) {
+            MethodMetadata factoryMethod = ((AnnotatedBeanDefinition) definition).getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                return factoryMethod.getDeclaringClassName();
+            }
+        }
+        return definition.getBeanClassName();
+    }
+
+    private static boolean inPackages(String className, List<String> packages) {
+        return className != null && packages.stream().anyMatch(name -> className.startsWith(name + "."));
+    }
+}
@@ -1,58 +1,131 @@
 package ru.hogwarts.school.controller;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.hogwarts.school.dto.AvatarCacheStatsDto;
 import ru.hogwarts.school.dto.AvatarDto;
 import ru.hogwarts.school.model.Avatar;
 import ru.hogwarts.school.service.AvatarService;
 
-import javax.servlet.http.HttpServletResponse;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
 
 @RestController
 @RequestMapping("/avatar")
 public class AvatarController {
-    private static final Logger logger = LoggerFactory.getLogger(AvatarController.class);
     public final AvatarService avatarService;
+    private final CacheControl cacheControl;
 
-    public AvatarController(AvatarService avatarService) {
+    public AvatarController(AvatarService avatarService, @Value("${avatar.http.max-age:0s}") Duration maxAge) {
         this.avatarService = avatarService;
+        this.cacheControl = CacheControl.maxAge(maxAge);
     }
 
+    /**
+     * Conditional requests are answered with 304 from the stored hash and timestamp before any
+     * content is loaded; {@code Range} requests on the returned {@link Resource} become 206 responses.
+     * With {@code size} a thumbnail of at least that many pixels is served once it has been generated,
+     * and the original until then.
+     */
+    @AvatarIo
     @GetMapping("/from-disk/{id}")
-    public void fromDisk(@PathVariable Long id, HttpServletResponse response) {
+    public ResponseEntity<Resource> fromDisk(@PathVariable Long id, @RequestParam(required = false) Integer size,
+                                             WebRequest request) throws IOException {
         Avatar avatar = avatarService.getById(id);
-        response.setContentType(avatar.getMediaType());
-        response.setContentLength((int) avatar.getFileSize());
-        try (FileInputStream fis = new FileInputStream(avatar.getFilePath())) {
-            fis.transferTo(response.getOutputStream());
-        } catch (IOException e) {
-            logger.error("Filed to download avatar with id = " + id, e);
-
+        if (size != null) {
+            int thumbnailSize = avatarService.thumbnailSize(size);
+            Resource thumbnail = avatarService.getThumbnail(avatar, thumbnailSize);
+            if (thumbnail != null) {
+                String eTag = avatar.getContentHash() == null ? null : avatar.getContentHash() + "-" + thumbnailSize;
+                if (isNotModified(eTag, avatar, request)) {
+                    return null;
+                }
+                return served(ok(eTag, avatar).body(thumbnail), request);
+            }
+        }
+        if (isNotModified(avatar.getContentHash(), avatar, request)) {
+            return null;
         }
+        return served(ok(avatar.getContentHash(), avatar).body(avatarService.getContent(avatar)), request);
     }
 
+    /**
+     * Kept for existing clients: serves the same content as {@code /from-disk}, from whichever backend
+     * {@code avatar.storage.mode} selects.
+     */
+    @AvatarIo
     @GetMapping("/from-db/{id}")
-    public ResponseEntity<byte[]> fromDb(@PathVariable Long id) {
+    public ResponseEntity<Resource> fromDb(@PathVariable Long id, WebRequest request) throws IOException {
         Avatar avatar = avatarService.getById(id);
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(avatar.getMediaType()));
-        headers.setContentLength(avatar.getFileSize());
-        return ResponseEntity.status(200).headers(headers).body(avatar.getData());
+        if (isNotModified(avatar.getContentHash(), avatar, request)) {
+            return null;
+        }
+        return served(ok(avatar.getContentHash(), avatar).body(avatarService.getContent(avatar)), request);
     }
 
+    /**
+     * Offset paging by {@code page}, or keyset paging by {@code after} (the last avatar id of the previous page).
+     */
     @GetMapping("/paginate")
-    public List<AvatarDto> getAvatarsPaginated(@RequestParam("page") int pageNumber) {
+    public List<AvatarDto> getAvatarsPaginated(@RequestParam(value = "page", defaultValue = "0") int pageNumber,
+                                               @RequestParam(value = "after", required = false) Long afterId) {
+        if (afterId != null) {
+            return avatarService.findAvatarsAfter(afterId);
+        }
         return avatarService.findAvatarsPaginated(pageNumber);
     }
 
+    @GetMapping("/cache-stats")
+    public AvatarCacheStatsDto getCacheStats() {
+        return avatarService.getCacheStats();
+    }
+
+    private boolean isNotModified(String eTag, Avatar avatar, WebRequest request) {
+        long lastModified = avatar.getLastModified() == null ? -1 : avatar.getLastModified().toEpochMilli();
+        return eTag != null && request.checkNotModified(eTag, lastModified);
+    }
+
+    private ResponseEntity<Resource> served(ResponseEntity<Resource> response, WebRequest request) throws IOException {
+        Resource resource = response.getBody();
+        long length = resource.contentLength();
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null) {
+            try {
+                length = 0;
+                for (ResourceRegion region : HttpRange.toResourceRegions(HttpRange.parseRanges(range), resource)) {
+                    length += region.getCount();
+                }
+            } catch (IllegalArgumentException e) {
+                length = 0;
+            }
+        }
+        avatarService.recordServed(length);
+        return response;
+    }
+
+    private ResponseEntity.BodyBuilder ok(String eTag, Avatar avatar) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(avatar.getMediaType()))
+                .cacheControl(cacheControl);
+        if (eTag != null) {
+            builder.eTag(eTag);
+        }
+        if (avatar.getLastModified() != null) {
+            builder.lastModified(avatar.getLastModified());
+        }
+        return builder;
+    }
+
 }
 
 
@@ -0,0 +1,15 @@
+package ru.hogwarts.school.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks handlers that read or write avatar content. They run in the avatar bulkhead, so a burst of
+ * uploads or downloads cannot take the threads the other endpoints need.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AvatarIo {
+}
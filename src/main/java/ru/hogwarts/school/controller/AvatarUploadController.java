@@ -0,0 +1,74 @@
+package ru.hogwarts.school.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.hogwarts.school.dto.AvatarUploadDto;
+import ru.hogwarts.school.exception.InvalidContentRangeException;
+import ru.hogwarts.school.service.AvatarUploadService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resumable avatar upload: {@code POST} starts an upload of {@code size} bytes, each {@code PUT} sends one
+ * {@code Content-Range} of them, {@code GET} tells where to continue after a dropped connection, and
+ * {@code POST /complete} makes the image the student's avatar. Unlike {@code POST /student/{id}/avatar},
+ * the size is not limited by the multipart settings but by {@code avatar.upload.max-size}.
+ */
+@RestController
+@RequestMapping("/avatar/uploads")
+public class AvatarUploadController {
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d{1,18})-(\\d{1,18})/(\\d{1,18}|\\*)");
+
+    private final AvatarUploadService uploadService;
+
+    public AvatarUploadController(AvatarUploadService uploadService) {
+        this.uploadService = uploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<AvatarUploadDto> create(@RequestParam Long studentId, @RequestParam long size,
+                                                  @RequestParam MediaType mediaType) throws IOException {
+        AvatarUploadDto upload = uploadService.create(studentId, size, mediaType.toString());
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{id}")
+                .buildAndExpand(upload.getId())
+                .toUri();
+        return ResponseEntity.created(location).body(upload);
+    }
+
+    @GetMapping("/{id}")
+    public AvatarUploadDto get(@PathVariable String id) {
+        return uploadService.get(id);
+    }
+
+    @AvatarIo
+    @PutMapping("/{id}")
+    public AvatarUploadDto write(@PathVariable String id, @RequestHeader(HttpHeaders.CONTENT_RANGE) String contentRange,
+                                 InputStream body) throws IOException {
+        Matcher range = CONTENT_RANGE.matcher(contentRange);
+        if (!range.matches()) {
+            throw new InvalidContentRangeException("Expected Content-Range: bytes first-last/size, got " + contentRange);
+        }
+        Long size = range.group(3).equals("*") ? null : Long.valueOf(range.group(3));
+        return uploadService.write(id, Long.parseLong(range.group(1)), Long.parseLong(range.group(2)), size, body);
+    }
+
+    @AvatarIo
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<Long> complete(@PathVariable String id) throws IOException {
+        return ResponseEntity.ok(uploadService.complete(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable String id) {
+        uploadService.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,41 @@
+package ru.hogwarts.school.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.hogwarts.school.dto.CursorPage;
+
+import java.util.Collection;
+
+/**
+ * Paging parameters and response headers shared by the cursor-paged listings and their NDJSON exports.
+ */
+final class CursorPaging {
+    static final int DEFAULT_PAGE_LIMIT = 50;
+    static final int MAX_PAGE_LIMIT = 1000;
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private CursorPaging() {
+    }
+
+    static int pageLimit(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_LIMIT : Math.max(1, Math.min(limit, MAX_PAGE_LIMIT));
+    }
+
+    /**
+     * The page's items; the cursor of the next page, if any, goes into {@code X-Next-Cursor} and a {@code Link} header.
+     */
+    static <T> ResponseEntity<Collection<T>> response(CursorPage<T> page, int pageLimit) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            String nextUri = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNext())
+                    .replaceQueryParam("limit", pageLimit)
+                    .toUriString();
+            response.header("X-Next-Cursor", page.getNext())
+                    .header(HttpHeaders.LINK, "<" + nextUri + ">; rel=\"next\"");
+        }
+        return response.body(page.getItems());
+    }
+}
@@ -0,0 +1,16 @@
+package ru.hogwarts.school.controller;
+
+/**
+ * Entity tags of the JSON reads. They are sent weak: Tomcat does not gzip a response carrying a strong
+ * {@code ETag}, since compressing changes its bytes, and a version says nothing about the encoding anyway.
+ * Conditional requests compare tags weakly, so clients still holding a strong tag keep matching.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String weak(String tag) {
+        return "W/\"" + tag + "\"";
+    }
+}
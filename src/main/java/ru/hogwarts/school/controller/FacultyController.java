@@ -1,19 +1,29 @@
 package ru.hogwarts.school.controller;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.hogwarts.school.dto.CacheRegionStatsDto;
+import ru.hogwarts.school.dto.MultiGetDto;
+import ru.hogwarts.school.exception.TooManyIdsException;
 import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.service.ExportService;
 import ru.hogwarts.school.service.FacultyService;
 
 import java.util.Collection;
+import java.util.List;
 
 
 @RestController
 @RequestMapping("/faculty")
 public class FacultyController {
     private final FacultyService service;
+    private final ExportService exportService;
 
-    public FacultyController(FacultyService service) {
+    public FacultyController(FacultyService service, ExportService exportService) {
         this.service = service;
+        this.exportService = exportService;
     }
 
     @PostMapping
@@ -32,13 +42,47 @@ public class FacultyController {
     }
 
     @GetMapping("/{id}")
-    public Faculty getById(@PathVariable Long id) {
-        return service.getById(id);
+    public ResponseEntity<Faculty> getById(@PathVariable Long id, WebRequest request) {
+        Faculty faculty = service.getById(id);
+        if (request.checkNotModified(ETags.weak(String.valueOf(faculty.getVersion())))) {
+            return null;
+        }
+        return ResponseEntity.ok(faculty);
     }
 
+    /**
+     * Faculties by id in one round trip, in the order asked; ids without a faculty are listed in {@code missing}.
+     */
+    @GetMapping(params = "ids")
+    public MultiGetDto<Faculty> getByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MultiGetDto.MAX_IDS) {
+            throw new TooManyIdsException("At most " + MultiGetDto.MAX_IDS + " ids per request");
+        }
+        return service.getByIds(ids);
+    }
+
+    /**
+     * Without paging parameters returns every faculty. With {@code cursor} or {@code limit} returns one
+     * id-ordered page; the cursor of the next page is sent in {@code X-Next-Cursor} and a {@code Link} header.
+     * A matching {@code If-None-Match} is answered with 304 before the faculties are read.
+     */
     @GetMapping
-    public Collection<Faculty> getAll() {
-        return service.getAll();
+    public ResponseEntity<Collection<Faculty>> getAll(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      WebRequest request) {
+        if (request.checkNotModified(ETags.weak(service.getListETag()))) {
+            return null;
+        }
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(service.getAll());
+        }
+        int pageLimit = CursorPaging.pageLimit(limit);
+        return CursorPaging.response(service.getPage(cursor, pageLimit), pageLimit);
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok().contentType(CursorPaging.NDJSON).body(exportService::exportFaculties);
     }
 
     @GetMapping("/filtered")
@@ -48,7 +92,7 @@ public class FacultyController {
 
     @GetMapping("/by-color-or-name")
     public Collection<Faculty> filteredByColorOrName(@RequestParam String colorOrName) {
-        return service.getAllByNameOrColor(colorOrName, colorOrName);
+        return service.getAllByNameOrColor(colorOrName);
     }
 
     @GetMapping("/by-student")
@@ -56,6 +100,11 @@ public class FacultyController {
         return service.getByStudentId(studentId);
     }
 
+    @GetMapping("/cache-stats")
+    public List<CacheRegionStatsDto> getCacheStats() {
+        return service.getCacheStats();
+    }
+
 
 }
 
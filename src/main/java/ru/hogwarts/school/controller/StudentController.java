@@ -3,12 +3,23 @@ package ru.hogwarts.school.controller;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.hogwarts.school.dto.BulkImportResultDto;
+import ru.hogwarts.school.dto.MultiGetDto;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.dto.StudentNameDto;
+import ru.hogwarts.school.dto.StudentStatsDto;
+import ru.hogwarts.school.exception.TooManyIdsException;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.ExportService;
+import ru.hogwarts.school.service.StudentImportService;
 import ru.hogwarts.school.service.StudentService;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 
@@ -16,54 +27,110 @@ import java.util.List;
 @RestController
     @RequestMapping("/student")
     public class StudentController {
+        private static final int DEFAULT_SEARCH_LIMIT = 10;
+        private static final int MAX_SEARCH_LIMIT = 100;
         private final StudentService service;
         private final AvatarService avatarService;
+        private final ExportService exportService;
+        private final StudentImportService importService;
 
-        public StudentController(StudentService service, AvatarService avatarService) {
+        public StudentController(StudentService service, AvatarService avatarService, ExportService exportService,
+                                 StudentImportService importService) {
             this.service = service;
             this.avatarService = avatarService;
+            this.exportService = exportService;
+            this.importService = importService;
         }
 
         @PostMapping
-        public Student create(@RequestBody Student student) {
+        public StudentDto create(@RequestBody Student student) {
             return service.create(student);
         }
 
+        @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+        public BulkImportResultDto bulkJson(InputStream body) throws IOException {
+            return importService.importJson(body);
+        }
+
+        @PostMapping(value = "/bulk", consumes = "text/csv")
+        public BulkImportResultDto bulkCsv(InputStream body) throws IOException {
+            return importService.importCsv(body);
+        }
+
         @PutMapping("/{id}")
-        public Student update(@PathVariable Long id, @RequestBody Student student) {
+        public StudentDto update(@PathVariable Long id, @RequestBody Student student) {
             return service.update(id, student);
         }
 
         @DeleteMapping("/{id}")
-        public Student delete(@PathVariable Long id) {
+        public StudentDto delete(@PathVariable Long id) {
             return service.remove(id);
         }
 
         @GetMapping("/{id}")
-        public Student getById(@PathVariable Long id) {
-            return service.getById(id);
+        public ResponseEntity<StudentDto> getById(@PathVariable Long id, WebRequest request) {
+            StudentDto student = service.getById(id);
+            if (request.checkNotModified(ETags.weak(student.getETag()))) {
+                return null;
+            }
+            return ResponseEntity.ok(student);
+        }
+
+        /**
+         * Students by id in one round trip, in the order asked; ids without a student are listed in {@code missing}.
+         */
+        @GetMapping(params = "ids")
+        public MultiGetDto<StudentDto> getByIds(@RequestParam List<Long> ids) {
+            if (ids.size() > MultiGetDto.MAX_IDS) {
+                throw new TooManyIdsException("At most " + MultiGetDto.MAX_IDS + " ids per request");
+            }
+            return service.getByIds(ids);
         }
 
+        /**
+         * Without paging parameters returns every student. With {@code cursor} or {@code limit} returns one
+         * id-ordered page; the cursor of the next page is sent in {@code X-Next-Cursor} and a {@code Link} header.
+         */
         @GetMapping
-        public Collection<Student> getAll() {
-            return service.getAll();
+        public ResponseEntity<Collection<StudentDto>> getAll(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limit) {
+            if (cursor == null && limit == null) {
+                return ResponseEntity.ok(service.getAll());
+            }
+            int pageLimit = CursorPaging.pageLimit(limit);
+            return CursorPaging.response(service.getPage(cursor, pageLimit), pageLimit);
+        }
+
+        @GetMapping(value = "/export", produces = "application/x-ndjson")
+        public ResponseEntity<StreamingResponseBody> export() {
+            return ResponseEntity.ok().contentType(CursorPaging.NDJSON).body(exportService::exportStudents);
+        }
+
+        /**
+         * Type-ahead lookup: students whose name starts with {@code prefix}, ignoring case, in name order.
+         */
+        @GetMapping("/search")
+        public List<StudentNameDto> search(@RequestParam String prefix,
+                                           @RequestParam(defaultValue = "" + DEFAULT_SEARCH_LIMIT) int limit) {
+            return service.searchByPrefix(prefix, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT)));
         }
 
         @GetMapping("/filtered")
-        public Collection<Student> getAllByAge(@RequestParam int age) {
+        public Collection<StudentDto> getAllByAge(@RequestParam int age) {
             return service.getAllByAge(age);
         }
 
         @GetMapping("/age-between")
-        public Collection<Student> ageBetween(@RequestParam int min, @RequestParam int max) {
+        public Collection<StudentDto> ageBetween(@RequestParam int min, @RequestParam int max) {
             return service.getByAge(min, max);
         }
 
         @GetMapping("/by-faculty")
-        public Collection<Student> getByFaculty(Long facultyId) {
+        public Collection<StudentDto> getByFaculty(Long facultyId) {
             return service.getByFacultyId(facultyId);
         }
 
+        @AvatarIo
         @PostMapping(value = "/{studentId}/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
         public ResponseEntity<Long> save(@PathVariable Long studentId, @RequestBody MultipartFile multipartFile) {
             try {
@@ -82,9 +149,19 @@ import java.util.List;
         public Double getAverageAgeStudents() {
             return service.getAverageAgeStudents();
         }
+        @GetMapping("/stats")
+        public StudentStatsDto getStats() {
+            return service.getStats();
+        }
+        /**
+         * A matching {@code If-None-Match} is answered with 304 before the students are read.
+         */
         @GetMapping("/last-five")
-        public ResponseEntity<List<Student>> findLastFiveStudents() {
-            List<Student> students = service.findLastFiveStudents();
+        public ResponseEntity<List<StudentDto>> findLastFiveStudents(WebRequest request) {
+            if (request.checkNotModified(ETags.weak(service.getListETag()))) {
+                return null;
+            }
+            List<StudentDto> students = service.findLastFiveStudents();
             return ResponseEntity.ok(students);
         }
 
@@ -0,0 +1,60 @@
+package ru.hogwarts.school.dto;
+
+import ru.hogwarts.school.model.AvatarUpload;
+
+/**
+ * State of a resumable avatar upload: the next chunk starts at {@code offset}, and the upload can be
+ * completed once it reaches {@code size}.
+ */
+public class AvatarUploadDto {
+    private String id;
+    private Long studentId;
+    private long offset;
+    private long size;
+
+    public AvatarUploadDto() {
+    }
+
+    public AvatarUploadDto(String id, Long studentId, long offset, long size) {
+        this.id = id;
+        this.studentId = studentId;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public static AvatarUploadDto of(AvatarUpload upload) {
+        return new AvatarUploadDto(upload.getId(), upload.getStudentId(), upload.getReceived(), upload.getSize());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.hogwarts.school.dto;
+
+public class BulkImportErrorDto {
+    private long row;
+    private String name;
+    private String error;
+    private String message;
+
+    public BulkImportErrorDto() {
+    }
+
+    public BulkImportErrorDto(long row, String name, String error, String message) {
+        this.row = row;
+        this.name = name;
+        this.error = error;
+        this.message = message;
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.hogwarts.school.dto;
+
+import java.util.List;
+
+public class BulkImportResultDto {
+    private long imported;
+    private long failed;
+    private List<BulkImportErrorDto> errors;
+
+    public BulkImportResultDto() {
+    }
+
+    public BulkImportResultDto(long imported, long failed, List<BulkImportErrorDto> errors) {
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<BulkImportErrorDto> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BulkImportErrorDto> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,62 @@
+package ru.hogwarts.school.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import ru.hogwarts.school.model.Faculty;
+
+public class FacultyDto {
+    private Long id;
+    private String name;
+    private String color;
+    @JsonIgnore
+    private long version;
+
+    public FacultyDto() {
+    }
+
+    public FacultyDto(Long id, String name, String color) {
+        this.id = id;
+        this.name = name;
+        this.color = color;
+    }
+
+    public FacultyDto(Long id, String name, String color, long version) {
+        this(id, name, color);
+        this.version = version;
+    }
+
+    public static FacultyDto of(Faculty faculty) {
+        return faculty == null ? null : new FacultyDto(faculty.getId(), faculty.getName(), faculty.getColor(), faculty.getVersion());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public void setColor(String color) {
+        this.color = color;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
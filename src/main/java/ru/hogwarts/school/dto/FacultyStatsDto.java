@@ -0,0 +1,40 @@
+package ru.hogwarts.school.dto;
+
+public class FacultyStatsDto {
+    private Long facultyId;
+    private long count;
+    private Double averageAge;
+
+    public FacultyStatsDto() {
+    }
+
+    public FacultyStatsDto(Long facultyId, long count, Double averageAge) {
+        this.facultyId = facultyId;
+        this.count = count;
+        this.averageAge = averageAge;
+    }
+
+    public Long getFacultyId() {
+        return facultyId;
+    }
+
+    public void setFacultyId(Long facultyId) {
+        this.facultyId = facultyId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Double getAverageAge() {
+        return averageAge;
+    }
+
+    public void setAverageAge(Double averageAge) {
+        this.averageAge = averageAge;
+    }
+}
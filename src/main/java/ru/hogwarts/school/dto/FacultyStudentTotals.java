@@ -0,0 +1,12 @@
+package ru.hogwarts.school.dto;
+
+/**
+ * Per-faculty student count and age sum, as returned by {@code StudentRepository.getTotalsByFaculty}.
+ */
+public interface FacultyStudentTotals {
+    Long getFacultyId();
+
+    long getCount();
+
+    Long getAgeSum();
+}
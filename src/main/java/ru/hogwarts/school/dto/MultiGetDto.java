@@ -0,0 +1,48 @@
+package ru.hogwarts.school.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Result of a lookup by a list of ids: what was found, in the order asked, and the ids that do not exist.
+ */
+public class MultiGetDto<T> {
+    /**
+     * Most ids one request may ask for.
+     */
+    public static final int MAX_IDS = 1000;
+
+    private final List<T> items;
+    private final List<Long> missing;
+
+    public MultiGetDto(List<T> items, List<Long> missing) {
+        this.items = items;
+        this.missing = missing;
+    }
+
+    /**
+     * Pairs {@code ids} with {@code loaded}, which holds the entity or {@code null} for each of them.
+     */
+    public static <E, T> MultiGetDto<T> of(List<Long> ids, List<E> loaded, Function<E, T> mapper) {
+        List<T> items = new ArrayList<>(ids.size());
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            E entity = loaded.get(i);
+            if (entity == null) {
+                missing.add(ids.get(i));
+            } else {
+                items.add(mapper.apply(entity));
+            }
+        }
+        return new MultiGetDto<>(items, missing);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public List<Long> getMissing() {
+        return missing;
+    }
+}
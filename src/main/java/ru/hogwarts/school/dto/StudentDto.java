@@ -0,0 +1,91 @@
+package ru.hogwarts.school.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import ru.hogwarts.school.model.Student;
+
+/**
+ * Read model of a student with its faculty flattened in. Repository queries build it with a JPQL
+ * constructor expression over {@code Student s LEFT JOIN s.faculty f}, so no entities are loaded.
+ * The entity versions are carried for entity tags and are not serialized.
+ */
+public class StudentDto {
+    private Long id;
+    private String name;
+    private int age;
+    @JsonIgnore
+    private long version;
+    private FacultyDto faculty;
+
+    public StudentDto() {
+    }
+
+    public StudentDto(Long id, String name, int age, FacultyDto faculty) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.faculty = faculty;
+    }
+
+    public StudentDto(Long id, String name, int age, long version, FacultyDto faculty) {
+        this(id, name, age, faculty);
+        this.version = version;
+    }
+
+    public StudentDto(Long id, String name, int age, long version, Long facultyId, String facultyName, String facultyColor,
+                      Long facultyVersion) {
+        this(id, name, age, version, facultyId == null ? null : new FacultyDto(facultyId, facultyName, facultyColor, facultyVersion));
+    }
+
+    public static StudentDto of(Student student) {
+        return new StudentDto(student.getId(), student.getName(), student.getAge(), student.getVersion(),
+                FacultyDto.of(student.getFaculty()));
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Version tag of this student as served, faculty included; the controller sends it as a weak ETag.
+     */
+    @JsonIgnore
+    public String getETag() {
+        return faculty == null ? String.valueOf(version) : version + "-" + faculty.getId() + "-" + faculty.getVersion();
+    }
+
+    public FacultyDto getFaculty() {
+        return faculty;
+    }
+
+    public void setFaculty(FacultyDto faculty) {
+        this.faculty = faculty;
+    }
+}
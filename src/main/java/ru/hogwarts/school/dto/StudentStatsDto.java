@@ -0,0 +1,42 @@
+package ru.hogwarts.school.dto;
+
+import java.util.List;
+
+public class StudentStatsDto {
+    private long count;
+    private Double averageAge;
+    private List<FacultyStatsDto> byFaculty;
+
+    public StudentStatsDto() {
+    }
+
+    public StudentStatsDto(long count, Double averageAge, List<FacultyStatsDto> byFaculty) {
+        this.count = count;
+        this.averageAge = averageAge;
+        this.byFaculty = byFaculty;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Double getAverageAge() {
+        return averageAge;
+    }
+
+    public void setAverageAge(Double averageAge) {
+        this.averageAge = averageAge;
+    }
+
+    public List<FacultyStatsDto> getByFaculty() {
+        return byFaculty;
+    }
+
+    public void setByFaculty(List<FacultyStatsDto> byFaculty) {
+        this.byFaculty = byFaculty;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class AvatarUploadConflictException extends RuntimeException {
+    public AvatarUploadConflictException() {
+    }
+
+    public AvatarUploadConflictException(String message) {
+        super(message);
+    }
+
+    public AvatarUploadConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public AvatarUploadConflictException(Throwable cause) {
+        super(cause);
+    }
+
+    public AvatarUploadConflictException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class AvatarUploadNotFoundException extends RuntimeException {
+    public AvatarUploadNotFoundException() {
+    }
+
+    public AvatarUploadNotFoundException(String message) {
+        super(message);
+    }
+
+    public AvatarUploadNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public AvatarUploadNotFoundException(Throwable cause) {
+        super(cause);
+    }
+
+    public AvatarUploadNotFoundException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
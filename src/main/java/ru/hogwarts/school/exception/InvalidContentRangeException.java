@@ -0,0 +1,26 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidContentRangeException extends RuntimeException {
+    public InvalidContentRangeException() {
+    }
+
+    public InvalidContentRangeException(String message) {
+        super(message);
+    }
+
+    public InvalidContentRangeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidContentRangeException(Throwable cause) {
+        super(cause);
+    }
+
+    public InvalidContentRangeException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class TooManyIdsException extends RuntimeException {
+    public TooManyIdsException() {
+    }
+
+    public TooManyIdsException(String message) {
+        super(message);
+    }
+
+    public TooManyIdsException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TooManyIdsException(Throwable cause) {
+        super(cause);
+    }
+
+    public TooManyIdsException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.hogwarts.school.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.util.Objects;
+
+/**
+ * A distinct avatar image, identified by the SHA-256 of its bytes, with the number of avatars that use it.
+ */
+@Entity
+public class AvatarBlob {
+    @Id
+    @Column(length = 64)
+    private String hash;
+    private long size;
+    private long refCount;
+
+    public AvatarBlob() {
+
+    }
+
+    public AvatarBlob(String hash, long size, long refCount) {
+        this.hash = hash;
+        this.size = size;
+        this.refCount = refCount;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(long refCount) {
+        this.refCount = refCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AvatarBlob that = (AvatarBlob) o;
+        return size == that.size && refCount == that.refCount && Objects.equals(hash, that.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hash, size, refCount);
+    }
+}
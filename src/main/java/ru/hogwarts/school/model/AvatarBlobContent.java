@@ -0,0 +1,59 @@
+package ru.hogwarts.school.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Image bytes of an {@link AvatarBlob} kept in the database, in {@code database} or {@code tiered} storage mode.
+ */
+@Entity
+public class AvatarBlobContent {
+    @Id
+    @Column(length = 64)
+    private String hash;
+    @Column(length = 10 * 1024 * 1024)
+    private byte[] data;
+
+    public AvatarBlobContent() {
+
+    }
+
+    public AvatarBlobContent(String hash, byte[] data) {
+        this.hash = hash;
+        this.data = data;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AvatarBlobContent that = (AvatarBlobContent) o;
+        return Objects.equals(hash, that.hash) && Arrays.equals(data, that.data);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(hash);
+        result = 31 * result + Arrays.hashCode(data);
+        return result;
+    }
+}
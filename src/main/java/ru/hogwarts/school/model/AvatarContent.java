@@ -0,0 +1,59 @@
+package ru.hogwarts.school.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Image bytes of an {@link Avatar}, kept in their own table so metadata queries never read them.
+ */
+@Entity
+public class AvatarContent {
+    @Id
+    @Column(name = "avatar_id")
+    private Long avatarId;
+    @Column(length = 10 * 1024 * 1024)
+    private byte[] data;
+
+    public AvatarContent() {
+
+    }
+
+    public AvatarContent(Long avatarId, byte[] data) {
+        this.avatarId = avatarId;
+        this.data = data;
+    }
+
+    public Long getAvatarId() {
+        return avatarId;
+    }
+
+    public void setAvatarId(Long avatarId) {
+        this.avatarId = avatarId;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AvatarContent that = (AvatarContent) o;
+        return Objects.equals(avatarId, that.avatarId) && Arrays.equals(data, that.data);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(avatarId);
+        result = 31 * result + Arrays.hashCode(data);
+        return result;
+    }
+}
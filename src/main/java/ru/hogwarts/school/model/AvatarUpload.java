@@ -0,0 +1,97 @@
+package ru.hogwarts.school.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A resumable avatar upload in progress: the declared size of the image and how many bytes of it have been received.
+ */
+@Entity
+public class AvatarUpload {
+    @Id
+    @Column(length = 36)
+    private String id;
+    private Long studentId;
+    private String mediaType;
+    private long size;
+    private long received;
+    private Instant updatedAt;
+
+    public AvatarUpload() {
+
+    }
+
+    public AvatarUpload(String id, Long studentId, String mediaType, long size, Instant updatedAt) {
+        this.id = id;
+        this.studentId = studentId;
+        this.mediaType = mediaType;
+        this.size = size;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public void setMediaType(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AvatarUpload that = (AvatarUpload) o;
+        return size == that.size && received == that.received && Objects.equals(id, that.id)
+                && Objects.equals(studentId, that.studentId) && Objects.equals(mediaType, that.mediaType)
+                && Objects.equals(updatedAt, that.updatedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, studentId, mediaType, size, received, updatedAt);
+    }
+}
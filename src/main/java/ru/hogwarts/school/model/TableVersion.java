@@ -0,0 +1,55 @@
+package ru.hogwarts.school.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.util.Objects;
+
+/**
+ * A counter bumped by every change to the rows of one table, so list responses can be tagged without reading them.
+ */
+@Entity
+public class TableVersion {
+    @Id
+    @Column(length = 64)
+    private String name;
+    private long version;
+
+    public TableVersion() {
+
+    }
+
+    public TableVersion(String name, long version) {
+        this.name = name;
+        this.version = version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TableVersion that = (TableVersion) o;
+        return version == that.version && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, version);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.hogwarts.school.reposirory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.hogwarts.school.model.AvatarContent;
+
+public interface AvatarContentRepository extends JpaRepository<AvatarContent, Long> {
+
+    @Modifying
+    @Query("DELETE FROM AvatarContent c WHERE c.avatarId IN (SELECT a.id FROM Avatar a WHERE a.student.id = :studentId)")
+    void deleteByStudentId(@Param("studentId") Long studentId);
+}
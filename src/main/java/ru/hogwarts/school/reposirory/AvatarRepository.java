@@ -1,9 +1,14 @@
 package ru.hogwarts.school.reposirory;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.hogwarts.school.dto.AvatarDto;
 import ru.hogwarts.school.model.Avatar;
 import ru.hogwarts.school.model.Student;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface AvatarRepository extends JpaRepository<Avatar,Long> {
@@ -11,6 +16,19 @@ public interface AvatarRepository extends JpaRepository<Avatar,Long> {
 
     void deleteByStudent_id(Long studentId);
 
+    @Query("SELECT a.id FROM Avatar a WHERE a.student.id = :studentId")
+    List<Long> findIdsByStudentId(@Param("studentId") Long studentId);
 
+    @Query("SELECT a.contentHash FROM Avatar a WHERE a.student.id = :studentId AND a.contentHash IS NOT NULL")
+    List<String> findContentHashesByStudentId(@Param("studentId") Long studentId);
+
+    @Query("SELECT new ru.hogwarts.school.dto.AvatarDto(a.id, s.id, s.name) FROM Avatar a JOIN a.student s ORDER BY a.id")
+    List<AvatarDto> findAvatarDtos(Pageable pageable);
+
+    /**
+     * Keyset page: seeks past {@code afterId} on the primary key instead of skipping rows with OFFSET.
+     */
+    @Query("SELECT new ru.hogwarts.school.dto.AvatarDto(a.id, s.id, s.name) FROM Avatar a JOIN a.student s WHERE a.id > :afterId ORDER BY a.id")
+    List<AvatarDto> findAvatarDtosAfter(@Param("afterId") Long afterId, Pageable pageable);
 
 }
@@ -0,0 +1,38 @@
+package ru.hogwarts.school.reposirory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.model.AvatarUpload;
+
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Not exported by Spring Data REST: a session's received count and student only change through
+ * {@link ru.hogwarts.school.service.AvatarUploadService}, which checks the bytes written.
+ */
+@RepositoryRestResource(exported = false)
+public interface AvatarUploadRepository extends JpaRepository<AvatarUpload, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM AvatarUpload u WHERE u.id = :id")
+    Optional<AvatarUpload> findForUpdate(@Param("id") String id);
+
+    /**
+     * Raises the received count to {@code received}; a lower value, from a retried chunk, leaves it as it is.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE AvatarUpload u SET u.received = :received, u.updatedAt = :now WHERE u.id = :id AND u.received < :received")
+    int advance(@Param("id") String id, @Param("received") long received, @Param("now") Instant now);
+
+    @Query("SELECT u.id FROM AvatarUpload u WHERE u.updatedAt < :before")
+    List<String> findIdsUpdatedBefore(@Param("before") Instant before);
+}
@@ -1,13 +1,43 @@
 package ru.hogwarts.school.reposirory;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.hogwarts.school.model.Faculty;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface FacultyRepository extends JpaRepository<Faculty, Long> {
+    String QUERY_CACHE_REGION = "ru.hogwarts.school.model.Faculty.queries";
+
+    @Override
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
+    List<Faculty> findAll();
 
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
     List<Faculty> findAllByColor(String color);
 
-    List<Faculty> findAllByColorLikeIgnoreCaseOrNameLikeIgnoreCase(String color, String name);
+    /**
+     * Faculties whose lower-cased name or color matches {@code pattern}, a lower-case LIKE pattern escaped with {@code \}.
+     */
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
+    @Query("SELECT f FROM Faculty f WHERE lower(f.name) LIKE :pattern ESCAPE '\\' OR lower(f.color) LIKE :pattern ESCAPE '\\' ORDER BY f.id")
+    List<Faculty> searchByNameOrColor(@Param("pattern") String pattern);
+
+    List<Faculty> findAllByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("SELECT f FROM Faculty f ORDER BY f.id")
+    Stream<Faculty> streamAll();
 }
@@ -0,0 +1,56 @@
+package ru.hogwarts.school.reposirory;
+
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Loads entities for a list of ids with {@code IN} queries of up to {@code multi-load.batch-size} ids.
+ * Entities already in the persistence context or the second-level cache are taken from there and their ids
+ * left out of the queries. The result lines up with {@code ids}, with {@code null} for ids that do not exist.
+ * <p>
+ * Hibernate's {@code default_batch_fetch_size} is set to the same size, so the lazy faculties of the loaded
+ * students are initialized in as few queries as the students themselves.
+ */
+@Component
+public class MultiIdLoader {
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    public MultiIdLoader(EntityManager entityManager, @Value("${multi-load.batch-size:100}") int batchSize) {
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    public <T> List<T> load(Class<T> type, List<Long> ids) {
+        Session session = entityManager.unwrap(Session.class);
+        // Hibernate 5 multi-loading only checks the persistence context, so cached ids are resolved one by one first
+        Cache cache = session.getSessionFactory().getCache();
+        Map<Long, T> cached = new HashMap<>();
+        for (Long id : ids) {
+            if (cache.contains(type, id)) {
+                cached.put(id, session.get(type, id));
+            }
+        }
+        List<Long> uncachedIds = ids.stream().filter(id -> !cached.containsKey(id)).collect(Collectors.toList());
+        List<T> loaded = session.byMultipleIds(type)
+                .enableSessionCheck(true)
+                .enableOrderedReturn(true)
+                .withBatchSize(batchSize)
+                .multiLoad(uncachedIds);
+        List<T> entities = new ArrayList<>(ids.size());
+        int next = 0;
+        for (Long id : ids) {
+            entities.add(cached.containsKey(id) ? cached.get(id) : loaded.get(next++));
+        }
+        return entities;
+    }
+}
@@ -1,23 +1,63 @@
 package ru.hogwarts.school.reposirory;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.hogwarts.school.dto.FacultyStudentTotals;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.dto.StudentNameDto;
+import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
-    List<Student> findAllByAge(int age);
+    String STUDENT_DTO = "SELECT new ru.hogwarts.school.dto.StudentDto(s.id, s.name, s.age, s.version, f.id, f.name, f.color, f.version) "
+            + "FROM Student s LEFT JOIN s.faculty f ";
+
+    @Query(STUDENT_DTO + "WHERE s.id = :id")
+    Optional<StudentDto> findDtoById(@Param("id") Long id);
+
+    @Query(STUDENT_DTO + "ORDER BY s.id")
+    List<StudentDto> findAllDtos();
+
+    @Query(STUDENT_DTO + "WHERE s.age = :age ORDER BY s.id")
+    List<StudentDto> findAllByAge(@Param("age") int age);
+
+    @Query(STUDENT_DTO + "WHERE s.age BETWEEN :min AND :max ORDER BY s.id")
+    List<StudentDto> findAllByAgeBetween(@Param("min") int min, @Param("max") int max);
+
+    @Query(STUDENT_DTO + "ORDER BY s.id DESC")
+    List<StudentDto> findLastStudents(Pageable pageable);
+
+    @Query("SELECT f.id AS facultyId, COUNT(s) AS count, SUM(s.age) AS ageSum FROM Student s LEFT JOIN s.faculty f GROUP BY f.id")
+    List<FacultyStudentTotals> getTotalsByFaculty();
+
+    @Query(STUDENT_DTO + "WHERE s.id > :id ORDER BY s.id")
+    List<StudentDto> findAllByIdGreaterThanOrderById(@Param("id") Long id, Pageable pageable);
+
+    @Query(STUDENT_DTO + "WHERE f.id = :facultyId ORDER BY s.id")
+    List<StudentDto> findAllByFacultyId(@Param("facultyId") Long facultyId);
+
+    @Query("SELECT f FROM Student s JOIN s.faculty f WHERE s.id = :studentId")
+    Optional<Faculty> findFacultyByStudentId(@Param("studentId") Long studentId);
 
-    List<Student> findAllByAgeBetween(int min, int max);
-    @Query(value = "SELECT COUNT(*) FROM Student",nativeQuery = true)
-    Long getCountStudents();
-    @Query(value = "SELECT AVG(age) FROM Student",nativeQuery = true)
-    Double getAverageAgeStudents();
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("SELECT s FROM Student s LEFT JOIN FETCH s.faculty ORDER BY s.id")
+    Stream<Student> streamAll();
 
-    @Query(value = "SELECT * FROM Student ORDER BY id DESC", nativeQuery = true)
-    Page<Student> findLastFiveStudents(Pageable pageable);
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new ru.hogwarts.school.dto.StudentNameDto(s.id, s.name) FROM Student s")
+    Stream<StudentNameDto> streamNames();
 
 }
\ No newline at end of file
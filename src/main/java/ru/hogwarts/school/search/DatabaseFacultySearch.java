@@ -0,0 +1,36 @@
+package ru.hogwarts.school.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.reposirory.FacultyRepository;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs {@code lower(column) LIKE '%fragment%'}, which PostgreSQL answers from the {@code gin_trgm_ops}
+ * indexes created in {@code liquibase/faculty-trgm.sql}.
+ */
+@Component
+@ConditionalOnProperty(name = "faculty.search.mode", havingValue = "database")
+public class DatabaseFacultySearch implements FacultySearch {
+    private final FacultyRepository facultyRepository;
+
+    public DatabaseFacultySearch(FacultyRepository facultyRepository) {
+        this.facultyRepository = facultyRepository;
+    }
+
+    @Override
+    public List<Faculty> search(String fragment) {
+        return facultyRepository.searchByNameOrColor(containsPattern(fragment));
+    }
+
+    static String containsPattern(String fragment) {
+        String escaped = fragment.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
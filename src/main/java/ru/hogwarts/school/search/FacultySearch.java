@@ -0,0 +1,27 @@
+package ru.hogwarts.school.search;
+
+import ru.hogwarts.school.model.Faculty;
+
+import java.util.List;
+
+/**
+ * Case-insensitive substring search over faculty names and colors. The implementation is chosen by
+ * {@code faculty.search.mode}: {@code database} queries PostgreSQL through its trigram indexes,
+ * {@code memory} keeps an {@link NGramIndex} in the application.
+ */
+public interface FacultySearch {
+
+    List<Faculty> search(String fragment);
+
+    /**
+     * Called after a faculty is created or updated in the current transaction.
+     */
+    default void saved(Faculty faculty) {
+    }
+
+    /**
+     * Called after a faculty is deleted in the current transaction.
+     */
+    default void removed(Long facultyId) {
+    }
+}
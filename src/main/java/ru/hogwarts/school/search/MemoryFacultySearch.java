@@ -0,0 +1,65 @@
+package ru.hogwarts.school.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.config.AfterCommit;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.reposirory.FacultyRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves faculty searches from an in-process {@link NGramIndex}, for databases without trigram indexes
+ * such as H2. The index is loaded at startup, follows changes made through {@code FacultyService} and
+ * is rebuilt every {@code faculty.search.rebuild-interval-ms} to pick up other writes.
+ */
+@Component
+@ConditionalOnProperty(name = "faculty.search.mode", havingValue = "memory", matchIfMissing = true)
+public class MemoryFacultySearch implements FacultySearch {
+    private final FacultyRepository facultyRepository;
+    private final NGramIndex<Faculty> index = new NGramIndex<>();
+
+    public MemoryFacultySearch(FacultyRepository facultyRepository) {
+        this.facultyRepository = facultyRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${faculty.search.rebuild-interval-ms:300000}",
+            initialDelayString = "${faculty.search.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        Map<Long, Faculty> faculties = new HashMap<>();
+        for (Faculty faculty : facultyRepository.findAll()) {
+            faculties.put(faculty.getId(), copyOf(faculty));
+        }
+        index.replaceAll(faculties, MemoryFacultySearch::texts);
+    }
+
+    @Override
+    public List<Faculty> search(String fragment) {
+        return index.search(fragment);
+    }
+
+    @Override
+    public void saved(Faculty faculty) {
+        Faculty copy = copyOf(faculty);
+        AfterCommit.run(() -> index.put(copy.getId(), copy, texts(copy)));
+    }
+
+    @Override
+    public void removed(Long facultyId) {
+        AfterCommit.run(() -> index.remove(facultyId));
+    }
+
+    private static Faculty copyOf(Faculty faculty) {
+        return new Faculty(faculty.getId(), faculty.getName(), faculty.getColor());
+    }
+
+    private static String[] texts(Faculty faculty) {
+        return new String[]{faculty.getName(), faculty.getColor()};
+    }
+}
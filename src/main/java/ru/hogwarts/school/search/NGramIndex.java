@@ -0,0 +1,183 @@
+package ru.hogwarts.school.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Case-insensitive substring index over the texts of id-keyed values. Each text is split into
+ * trigrams; a search intersects the id sets of the query's trigrams and checks the few remaining
+ * candidates. Queries shorter than a trigram scan all entries.
+ */
+public class NGramIndex<T> {
+    private static final int GRAM_LENGTH = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private NavigableMap<Long, Entry<T>> entries = new TreeMap<>();
+    private Map<String, Set<Long>> postings = new HashMap<>();
+
+    public void put(Long id, T value, String... texts) {
+        Entry<T> entry = new Entry<>(value, normalize(texts));
+        lock.writeLock().lock();
+        try {
+            Entry<T> previous = entries.put(id, entry);
+            if (previous != null) {
+                unindex(postings, id, previous);
+            }
+            index(postings, id, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Entry<T> previous = entries.remove(id);
+            if (previous != null) {
+                unindex(postings, id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole content; the new index is built before the lock is taken.
+     */
+    public void replaceAll(Map<Long, T> values, Function<T, String[]> texts) {
+        NavigableMap<Long, Entry<T>> newEntries = new TreeMap<>();
+        Map<String, Set<Long>> newPostings = new HashMap<>();
+        values.forEach((id, value) -> {
+            Entry<T> entry = new Entry<>(value, normalize(texts.apply(value)));
+            newEntries.put(id, entry);
+            index(newPostings, id, entry);
+        });
+        lock.writeLock().lock();
+        try {
+            entries = newEntries;
+            postings = newPostings;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<T> search(String fragment) {
+        return search(fragment, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Up to {@code limit} values with a text containing {@code fragment}, ignoring case, in id order.
+     */
+    public List<T> search(String fragment, int limit) {
+        String needle = fragment.toLowerCase(Locale.ROOT);
+        List<T> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Iterable<Long> candidates = needle.length() < GRAM_LENGTH ? entries.keySet() : candidates(needle);
+            for (Long id : candidates) {
+                Entry<T> entry = entries.get(id);
+                if (entry.contains(needle)) {
+                    result.add(entry.value);
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Long> candidates(String needle) {
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new TreeSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static <T> void index(Map<String, Set<Long>> postings, Long id, Entry<T> entry) {
+        for (String text : entry.texts) {
+            for (String gram : grams(text)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+        }
+    }
+
+    private static <T> void unindex(Map<String, Set<Long>> postings, Long id, Entry<T> entry) {
+        for (String text : entry.texts) {
+            for (String gram : grams(text)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static String[] normalize(String[] texts) {
+        String[] normalized = new String[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            normalized[i] = texts[i] == null ? "" : texts[i].toLowerCase(Locale.ROOT);
+        }
+        return normalized;
+    }
+
+    private static class Entry<T> {
+        private final T value;
+        private final String[] texts;
+
+        private Entry(T value, String[] texts) {
+            this.value = value;
+            this.texts = texts;
+        }
+
+        private boolean contains(String needle) {
+            for (String text : texts) {
+                if (text.contains(needle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
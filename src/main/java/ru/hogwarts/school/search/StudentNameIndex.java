@@ -0,0 +1,158 @@
+package ru.hogwarts.school.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.config.AfterCommit;
+import ru.hogwarts.school.dto.StudentNameDto;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.reposirory.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Student names sorted case-insensitively, for prefix lookups without a database round trip.
+ * Loaded at startup, updated after student changes commit and rebuilt every
+ * {@code student.search.rebuild-interval-ms} to pick up writes that bypass the services.
+ */
+@Component
+public class StudentNameIndex {
+    private static final Logger logger = LoggerFactory.getLogger(StudentNameIndex.class);
+
+    private final StudentRepository studentRepository;
+    private volatile Names names = new Names();
+    private long changes;
+
+    public StudentNameIndex(StudentRepository studentRepository) {
+        this.studentRepository = studentRepository;
+    }
+
+    /**
+     * Loads all names into a new index and swaps it in, unless a change was applied meanwhile;
+     * that run is skipped and the next one catches up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${student.search.rebuild-interval-ms:300000}",
+            initialDelayString = "${student.search.rebuild-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long changesBefore;
+        synchronized (this) {
+            changesBefore = changes;
+        }
+        Names rebuilt = new Names();
+        try (Stream<StudentNameDto> rows = studentRepository.streamNames()) {
+            rows.forEach(row -> rebuilt.put(row.getId(), row.getName()));
+        }
+        synchronized (this) {
+            if (changes != changesBefore) {
+                logger.debug("Students changed during rebuild, keeping the current name index");
+                return;
+            }
+            names = rebuilt;
+        }
+        logger.debug("Indexed " + rebuilt.byId.size() + " student names");
+    }
+
+    /**
+     * Up to {@code limit} students whose name starts with {@code prefix}, ignoring case, in name order.
+     */
+    public List<StudentNameDto> findByPrefix(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        List<StudentNameDto> result = new ArrayList<>(Math.min(limit, 64));
+        for (Map.Entry<Key, StudentNameDto> entry : names.byName.tailMap(new Key(normalized, Long.MIN_VALUE)).entrySet()) {
+            if (!entry.getKey().name.startsWith(normalized) || result.size() >= limit) {
+                break;
+            }
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
+    public void saved(Student student) {
+        Long id = student.getId();
+        String name = student.getName();
+        AfterCommit.run(() -> apply(index -> index.put(id, name)));
+    }
+
+    public void saved(Collection<Student> students) {
+        AfterCommit.run(() -> apply(index -> students.forEach(
+                student -> index.put(student.getId(), student.getName()))));
+    }
+
+    public void removed(Long studentId) {
+        AfterCommit.run(() -> apply(index -> index.remove(studentId)));
+    }
+
+    private synchronized void apply(Consumer<Names> change) {
+        changes++;
+        change.accept(names);
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Names {
+        private final NavigableMap<Key, StudentNameDto> byName = new ConcurrentSkipListMap<>();
+        private final Map<Long, Key> byId = new ConcurrentHashMap<>();
+
+        private void put(Long id, String name) {
+            Key key = new Key(normalize(name), id);
+            Key previous = byId.put(id, key);
+            if (previous != null) {
+                byName.remove(previous);
+            }
+            byName.put(key, new StudentNameDto(id, name));
+        }
+
+        private void remove(Long id) {
+            Key previous = byId.remove(id);
+            if (previous != null) {
+                byName.remove(previous);
+            }
+        }
+    }
+
+    private static class Key implements Comparable<Key> {
+        private final String name;
+        private final long id;
+
+        private Key(String name, long id) {
+            this.name = name;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byName = name.compareTo(other.name);
+            return byName != 0 ? byName : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return id == key.id && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id) * 31 + name.hashCode();
+        }
+    }
+}
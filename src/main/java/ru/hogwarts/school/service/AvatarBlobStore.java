@@ -0,0 +1,211 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.hogwarts.school.storage.AvatarStorage;
+import ru.hogwarts.school.storage.DatabaseAvatarStorage;
+import ru.hogwarts.school.storage.FileSystemAvatarStorage;
+
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed avatar storage. Each distinct image is stored once in the configured
+ * {@link AvatarStorage}, keyed by the SHA-256 of its bytes, and {@code avatar_blob} counts the avatars
+ * using it; the last release deletes the row, the stored image and its thumbnails.
+ * <p>
+ * Hashes are locked from the first change until the transaction completes, so a release that drops
+ * the count to zero cannot delete an image that a concurrent upload of the same image has just retained.
+ */
+@Service
+public class AvatarBlobStore {
+    private static final Logger logger = LoggerFactory.getLogger(AvatarBlobStore.class);
+    private static final int LOCK_STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AvatarStorage storage;
+    private final List<AvatarStorage> otherBackends;
+    private final AvatarThumbnailService thumbnailService;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    @Value("${path.to.avatars.folder}")
+    private Path avatarPath;
+
+    public AvatarBlobStore(JdbcTemplate jdbcTemplate, AvatarStorage storage, FileSystemAvatarStorage fileSystemStorage,
+                           DatabaseAvatarStorage databaseStorage, AvatarThumbnailService thumbnailService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storage = storage;
+        this.otherBackends = Stream.of(fileSystemStorage, databaseStorage)
+                .filter(backend -> !storage.backends().contains(backend))
+                .collect(Collectors.toList());
+        this.thumbnailService = thumbnailService;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Adds a reference to the image in {@code upload} and drops the one to {@code replacedHash}, if any.
+     * A new image is put into the storage, which may move {@code upload}; the caller deletes it otherwise.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void store(Path upload, String hash, long size, String replacedHash) throws IOException {
+        BlobChanges changes = lock(Stream.of(hash, replacedHash));
+        boolean created = false;
+        if (!hash.equals(replacedHash)) {
+            created = jdbcTemplate.update("UPDATE avatar_blob SET ref_count = ref_count + 1 WHERE hash = ?", hash) == 0;
+            if (created) {
+                jdbcTemplate.update("INSERT INTO avatar_blob (hash, size, ref_count) VALUES (?, ?, 1)", hash, size);
+            }
+        }
+        if (created || !storage.contains(hash)) {
+            storage.put(hash, upload, size);
+            changes.placed.add(hash);
+            thumbnailService.generateAfterCommit(hash);
+        }
+        if (replacedHash != null && !hash.equals(replacedHash)) {
+            release(replacedHash, changes);
+        }
+    }
+
+    /**
+     * Drops one reference to each of {@code hashes}, collecting the images nobody uses anymore.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void release(Collection<String> hashes) {
+        BlobChanges changes = lock(hashes.stream());
+        for (String hash : hashes) {
+            release(hash, changes);
+        }
+    }
+
+    /**
+     * Moves an image that only a backend other than the configured one has into the configured one.
+     * The old copy is deleted once the move commits, so it stays readable until then.
+     *
+     * @return whether the image was moved
+     */
+    @Transactional
+    public boolean migrate(String hash) throws IOException {
+        if (otherBackends.isEmpty()) {
+            return false;
+        }
+        BlobChanges changes = lock(Stream.of(hash));
+        if (storage.contains(hash)) {
+            return false;
+        }
+        for (AvatarStorage source : otherBackends) {
+            Resource content = source.get(hash);
+            if (content == null) {
+                continue;
+            }
+            Files.createDirectories(avatarPath);
+            Path tempFile = Files.createTempFile(avatarPath, hash, ".migrate");
+            try {
+                try (InputStream in = content.getInputStream()) {
+                    Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                storage.put(hash, tempFile, Files.size(tempFile));
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            changes.placed.add(hash);
+            changes.moved.add(source);
+            if (thumbnailService.find(hash, thumbnailService.sizeFor(0)) == null) {
+                thumbnailService.generateAfterCommit(hash);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void release(String hash, BlobChanges changes) {
+        jdbcTemplate.update("UPDATE avatar_blob SET ref_count = ref_count - 1 WHERE hash = ?", hash);
+        List<Long> refCount = jdbcTemplate.queryForList("SELECT ref_count FROM avatar_blob WHERE hash = ?", Long.class, hash);
+        if (!refCount.isEmpty() && refCount.get(0) <= 0) {
+            jdbcTemplate.update("DELETE FROM avatar_blob WHERE hash = ?", hash);
+            changes.collected.add(hash);
+        }
+    }
+
+    /**
+     * Takes the stripes of {@code hashes} in index order, so two transactions cannot wait on each other,
+     * and registers their release, and the cleanup, for when the transaction completes.
+     */
+    private BlobChanges lock(Stream<String> hashes) {
+        List<ReentrantLock> held = hashes.filter(Objects::nonNull)
+                .map(hash -> Math.floorMod(hash.hashCode(), LOCK_STRIPES))
+                .distinct()
+                .sorted()
+                .map(stripe -> locks[stripe])
+                .collect(Collectors.toList());
+        held.forEach(ReentrantLock::lock);
+        BlobChanges changes = new BlobChanges(held);
+        TransactionSynchronizationManager.registerSynchronization(changes);
+        return changes;
+    }
+
+    private void delete(AvatarStorage backend, String hash) {
+        try {
+            backend.delete(hash);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not delete avatar " + hash, e);
+        }
+    }
+
+    /**
+     * Images touched by one call: put into the storage, to be removed if the transaction rolls back;
+     * no longer referenced, to be removed everywhere once it commits; or moved out of another backend,
+     * to be removed from there once it commits.
+     */
+    private class BlobChanges implements TransactionSynchronization {
+        private final List<ReentrantLock> held;
+        private final List<String> placed = new ArrayList<>();
+        private final List<String> collected = new ArrayList<>();
+        private final List<AvatarStorage> moved = new ArrayList<>();
+
+        private BlobChanges(List<ReentrantLock> held) {
+            this.held = held;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (status == STATUS_COMMITTED) {
+                    for (String hash : collected) {
+                        delete(storage, hash);
+                        otherBackends.forEach(backend -> delete(backend, hash));
+                        try {
+                            thumbnailService.delete(hash);
+                        } catch (IOException e) {
+                            logger.warn("Could not delete thumbnails of " + hash, e);
+                        }
+                    }
+                    for (AvatarStorage source : moved) {
+                        placed.forEach(hash -> delete(source, hash));
+                    }
+                } else if (status == STATUS_ROLLED_BACK) {
+                    placed.forEach(hash -> delete(storage, hash));
+                }
+            } finally {
+                held.forEach(ReentrantLock::unlock);
+            }
+        }
+    }
+}
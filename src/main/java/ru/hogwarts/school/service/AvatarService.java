@@ -1,74 +1,293 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import ru.hogwarts.school.cache.AvatarContentCache;
+import ru.hogwarts.school.cache.ByteBufferResource;
+import ru.hogwarts.school.config.AfterCommit;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.AvatarCacheStatsDto;
 import ru.hogwarts.school.dto.AvatarDto;
 import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.AvatarContent;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.reposirory.AvatarContentRepository;
 import ru.hogwarts.school.reposirory.AvatarRepository;
 import ru.hogwarts.school.reposirory.StudentRepository;
+import ru.hogwarts.school.storage.AvatarStorage;
 
+import javax.transaction.Transactional;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class AvatarService {
     private static final Logger logger = LoggerFactory.getLogger(AvatarService.class);
+    /**
+     * Upper bound for a single {@link FileChannel#transferFrom} call; the JDK copies
+     * through a small temporary buffer, so heap usage per upload does not grow with file size.
+     */
+    private static final long TRANSFER_CHUNK_SIZE = 64 * 1024;
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int AVATAR_PAGE_SIZE = 5;
+
     private final AvatarRepository avatarRepository;
+    private final AvatarContentRepository avatarContentRepository;
     private final StudentRepository studentRepository;
+    private final AvatarStorage storage;
+    private final AvatarBlobStore blobStore;
+    private final AvatarContentCache avatarContentCache;
+    private final AvatarThumbnailService thumbnailService;
+    private final Counter bytesUploaded;
+    private final Counter bytesServed;
     @Value("${path.to.avatars.folder}")
     private Path avatarPath;
 
-    public AvatarService(AvatarRepository avatarRepository, StudentRepository studentRepository) {
+    public AvatarService(AvatarRepository avatarRepository, AvatarContentRepository avatarContentRepository,
+                         StudentRepository studentRepository, AvatarStorage storage,
+                         AvatarBlobStore blobStore, AvatarContentCache avatarContentCache,
+                         AvatarThumbnailService thumbnailService, MeterRegistry meterRegistry) {
         this.avatarRepository = avatarRepository;
+        this.avatarContentRepository = avatarContentRepository;
         this.studentRepository = studentRepository;
+        this.storage = storage;
+        this.blobStore = blobStore;
+        this.avatarContentCache = avatarContentCache;
+        this.thumbnailService = thumbnailService;
+        this.bytesUploaded = Counter.builder("avatar.bytes.uploaded").baseUnit("bytes").register(meterRegistry);
+        this.bytesServed = Counter.builder("avatar.bytes.served").baseUnit("bytes").register(meterRegistry);
     }
 
     public Avatar getById(Long id) {
-        logger.info("Start method getById");
+        Avatar cached = avatarContentCache.peekAvatar(id);
+        if (cached != null) {
+            return cached;
+        }
         return avatarRepository.findById(id).orElseThrow();
     }
 
+    /**
+     * Returns the avatar bytes from the cache, loading them from the {@link AvatarStorage} on a miss.
+     * An image still in a backend other than the configured one is moved first. Images too large
+     * for the cache are served straight from the storage.
+     */
+    public Resource getContent(Avatar avatar) throws IOException {
+        ByteBuffer cached = avatarContentCache.getContent(avatar.getId());
+        if (cached != null) {
+            return new ByteBufferResource(cached, "cached avatar " + avatar.getId());
+        }
+        Resource content = avatar.getContentHash() == null ? getUnhashedContent(avatar) : getStoredContent(avatar.getContentHash());
+        if (!avatarContentCache.accepts(avatar.getFileSize())) {
+            return content;
+        }
+        if (!content.isFile()) {
+            byte[] data;
+            try (InputStream in = content.getInputStream()) {
+                data = in.readAllBytes();
+            }
+            return new ByteBufferResource(avatarContentCache.put(avatar, data), "avatar " + avatar.getId());
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(content.getFile().toPath(), StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocateDirect((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+        }
+        buffer.flip();
+        avatarContentCache.put(avatar, buffer);
+        return new ByteBufferResource(buffer, "avatar file " + content.getFile());
+    }
+
+    /**
+     * The thumbnail size that answers a request for {@code requested} pixels.
+     */
+    public int thumbnailSize(int requested) {
+        return thumbnailService.sizeFor(requested);
+    }
+
+    /**
+     * Returns the stored thumbnail of a {@link #thumbnailSize} size, or {@code null} while it is still being generated.
+     */
+    public Resource getThumbnail(Avatar avatar, int size) {
+        Path thumbnail = avatar.getContentHash() == null ? null : thumbnailService.find(avatar.getContentHash(), size);
+        return thumbnail == null ? null : new FileSystemResource(thumbnail);
+    }
+
+    private Resource getStoredContent(String hash) throws IOException {
+        Resource content = storage.get(hash);
+        if (content == null && blobStore.migrate(hash)) {
+            content = storage.get(hash);
+        }
+        if (content == null) {
+            throw new NoSuchElementException("No stored content for avatar image " + hash);
+        }
+        return content;
+    }
+
+    /**
+     * Avatars uploaded before their hash was recorded keep their own file and {@code avatar_content} row.
+     */
+    private Resource getUnhashedContent(Avatar avatar) {
+        if (avatar.getFilePath() != null && Files.isRegularFile(Path.of(avatar.getFilePath()))) {
+            return new FileSystemResource(avatar.getFilePath());
+        }
+        return new ByteArrayResource(avatarContentRepository.findById(avatar.getId()).map(AvatarContent::getData).orElseThrow());
+    }
+
+    /**
+     * Counts avatar bytes written to a response: the whole content, or the requested ranges of it.
+     */
+    public void recordServed(long bytes) {
+        bytesServed.increment(bytes);
+    }
+
+    public AvatarCacheStatsDto getCacheStats() {
+        return avatarContentCache.getStats();
+    }
+
+    /**
+     * Streams the upload to a temporary file while hashing it, then hands it to the {@link AvatarBlobStore},
+     * which keeps one copy per distinct image in the configured {@link AvatarStorage}.
+     */
+    @Transactional
     public Long save(Long studentId, MultipartFile multipartFile) throws IOException {
-        logger.info("Start method save");
         logger.debug("File size=  " + multipartFile.getSize());
 
         Files.createDirectories(avatarPath);
-        int doIndex = multipartFile.getOriginalFilename().lastIndexOf(".");
-        String fileExtension = multipartFile.getOriginalFilename().substring(doIndex + 1);
-        Path path = avatarPath.resolve(studentId + "." + fileExtension);
-        byte[] data = multipartFile.getBytes();
-        Files.write(path, data, StandardOpenOption.CREATE);
+        MessageDigest digest = newDigest();
+        long fileSize;
+        Path tempFile = Files.createTempFile(avatarPath, studentId + "-", ".upload");
+        try {
+            try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(multipartFile.getInputStream(), digest));
+                 FileChannel target = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                fileSize = transfer(source, target);
+                target.force(false);
+            }
+            return attach(studentId, tempFile, toHex(digest.digest()), fileSize, multipartFile.getContentType());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Makes a fully received file the student's avatar. The {@link AvatarBlobStore} may move {@code upload}
+     * into the storage; the caller deletes it otherwise.
+     */
+    @Transactional
+    public Long save(Long studentId, Path upload, String mediaType) throws IOException {
+        MessageDigest digest = newDigest();
+        long fileSize = 0;
+        ByteBuffer buffer = ByteBuffer.allocate((int) TRANSFER_CHUNK_SIZE);
+        try (FileChannel source = FileChannel.open(upload, StandardOpenOption.READ)) {
+            int read;
+            while ((read = source.read(buffer)) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+                fileSize += read;
+            }
+        }
+        return attach(studentId, upload, toHex(digest.digest()), fileSize, mediaType);
+    }
 
+    private Long attach(Long studentId, Path upload, String hash, long fileSize, String mediaType) throws IOException {
         Student studentReference = (studentRepository.getReferenceById(studentId));
         Avatar avatar = avatarRepository.findFirstByStudent(studentReference).orElse(new Avatar());
+        if (avatar.getContentHash() == null && avatar.getId() != null && avatarContentRepository.existsById(avatar.getId())) {
+            avatarContentRepository.deleteById(avatar.getId());
+        }
+        blobStore.store(upload, hash, fileSize, avatar.getContentHash());
+        logger.debug("Stored " + fileSize + " bytes as " + hash);
+
         avatar.setStudent(studentReference);
-        avatar.setMediaType(multipartFile.getContentType());
-        avatar.setFileSize(multipartFile.getSize());
-        avatar.setData(data);
-        avatar.setFilePath(path.toAbsolutePath().toString());
+        avatar.setMediaType(mediaType);
+        avatar.setFileSize(fileSize);
+        avatar.setContentHash(hash);
+        avatar.setLastModified(Instant.now());
+        avatar.setFilePath(null);
         avatarRepository.save(avatar);
+        bytesUploaded.increment(fileSize);
+        evictAfterCommit(avatar.getId());
         return avatar.getId();
+    }
+
+    public List<AvatarDto> findAvatarsPaginated(int pageNumber) {
+        return avatarRepository.findAvatarDtos(PageRequest.of(pageNumber, AVATAR_PAGE_SIZE));
+    }
 
+    public List<AvatarDto> findAvatarsAfter(Long afterId) {
+        return avatarRepository.findAvatarDtosAfter(afterId, PageRequest.of(0, AVATAR_PAGE_SIZE));
+    }
 
+    /**
+     * Deletes the student's avatars and releases their images, deleting those no other avatar uses.
+     */
+    @Transactional
+    public void deleteByStudentId(Long studentId) {
+        avatarRepository.findIdsByStudentId(studentId).forEach(this::evictAfterCommit);
+        blobStore.release(avatarRepository.findContentHashesByStudentId(studentId));
+        avatarContentRepository.deleteByStudentId(studentId);
+        avatarRepository.deleteByStudent_id(studentId);
     }
 
-    public List<AvatarDto> findAvatarsPaginated(int pageNumber) {
-        logger.info("Start method findAvatarsPaginated");
-        return avatarRepository.findAll(PageRequest.of(pageNumber, 5))
-                .getContent()
-                .stream()
-                .map(a -> new AvatarDto(a.getId(), a.getStudent().getId(), a.getStudent().getName()))
-                .collect(Collectors.toList());
+    /**
+     * Evicts once the new state is committed, so a concurrent read cannot re-cache the old bytes
+     * between the eviction and the commit.
+     */
+    private void evictAfterCommit(Long avatarId) {
+        avatarContentCache.evict(avatarId);
+        AfterCommit.run(() -> avatarContentCache.evict(avatarId));
+    }
 
+    private static long transfer(ReadableByteChannel source, FileChannel target) throws IOException {
+        long position = 0;
+        long transferred;
+        while ((transferred = target.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0) {
+            position += transferred;
+        }
+        return position;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not supported", e);
+        }
+    }
 
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
     }
 }
@@ -0,0 +1,57 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Moves images left in a backend other than the configured {@code avatar.storage.mode}, for example
+ * after switching modes, into the configured one in batches of {@code avatar.storage.migrate-batch-size}.
+ * Reads of images not moved yet move them on demand, so the application keeps serving throughout.
+ */
+@Component
+public class AvatarStorageMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(AvatarStorageMigrator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AvatarBlobStore blobStore;
+    private final int batchSize;
+
+    public AvatarStorageMigrator(JdbcTemplate jdbcTemplate, AvatarBlobStore blobStore,
+                                 @Value("${avatar.storage.migrate-batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobStore = blobStore;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${avatar.storage.migrate-interval-ms:600000}",
+            initialDelayString = "${avatar.storage.migrate-initial-delay-ms:60000}")
+    public void migrate() {
+        String after = "";
+        long moved = 0;
+        List<String> hashes;
+        do {
+            hashes = jdbcTemplate.queryForList("SELECT hash FROM avatar_blob WHERE hash > ? ORDER BY hash LIMIT ?",
+                    String.class, after, batchSize);
+            for (String hash : hashes) {
+                try {
+                    if (blobStore.migrate(hash)) {
+                        moved++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not move avatar " + hash, e);
+                }
+                after = hash;
+            }
+        } while (hashes.size() == batchSize);
+        if (moved > 0) {
+            logger.info("Moved " + moved + " avatars into the configured storage");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.config.AfterCommit;
+import ru.hogwarts.school.storage.AvatarStorage;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates downscaled copies of uploaded avatars on a bounded background pool. A copy whose longest
+ * side is {@code size} pixels is stored on local disk as {@code ab/cd/<hash>-<size>} under
+ * {@code path.to.avatars.folder}, in the format read from the original's content, whatever
+ * {@link AvatarStorage} holds the original. Until it is written, callers serve the original instead.
+ */
+@Service
+public class AvatarThumbnailService {
+    private static final Logger logger = LoggerFactory.getLogger(AvatarThumbnailService.class);
+
+    private final AvatarStorage storage;
+    private final int[] sizes;
+    private final ThreadPoolExecutor executor;
+    @Value("${path.to.avatars.folder}")
+    private Path root;
+
+    public AvatarThumbnailService(AvatarStorage storage,
+                                  @Value("${avatar.thumbnail.sizes:64,128,256}") int[] sizes,
+                                  @Value("${avatar.processing.threads:2}") int threads,
+                                  @Value("${avatar.processing.queue-capacity:100}") int queueCapacity,
+                                  MeterRegistry meterRegistry) {
+        this.storage = storage;
+        this.sizes = Arrays.stream(sizes).sorted().toArray();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("avatar-processing-"));
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "avatar.processing");
+    }
+
+    /**
+     * The configured size to serve for a requested one: the smallest that is not below it, or the largest.
+     */
+    public int sizeFor(int requested) {
+        for (int size : sizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+
+    /**
+     * The stored copy of an image for a configured size, or {@code null} if it has not been generated.
+     */
+    public Path find(String hash, int size) {
+        Path thumbnail = thumbnailPath(hash, size);
+        return Files.isRegularFile(thumbnail) ? thumbnail : null;
+    }
+
+    /**
+     * Queues generation once the current transaction commits. When the queue is full the upload
+     * keeps only its original; it is not worth blocking the request thread for.
+     */
+    public void generateAfterCommit(String hash) {
+        AfterCommit.run(() -> {
+            try {
+                executor.execute(() -> generate(hash));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Avatar processing queue is full, no thumbnails for " + hash);
+            }
+        });
+    }
+
+    /**
+     * Removes the copies of a deleted image.
+     */
+    public void delete(String hash) throws IOException {
+        for (int size : sizes) {
+            Files.deleteIfExists(thumbnailPath(hash, size));
+        }
+    }
+
+    void generate(String hash) {
+        try {
+            Resource original = storage.get(hash);
+            if (original == null) {
+                logger.debug("No thumbnails for " + hash + ", the image is gone");
+                return;
+            }
+            String format;
+            BufferedImage image;
+            try (InputStream content = original.getInputStream();
+                 ImageInputStream in = ImageIO.createImageInputStream(content)) {
+                Iterator<ImageReader> readers = in == null ? Collections.emptyIterator() : ImageIO.getImageReaders(in);
+                if (!readers.hasNext()) {
+                    logger.debug("No thumbnails for " + hash + ", not a supported image");
+                    return;
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in);
+                    format = reader.getFormatName().toLowerCase(Locale.ROOT);
+                    image = reader.read(0);
+                } finally {
+                    reader.dispose();
+                }
+            }
+            if (!ImageIO.getImageWritersByFormatName(format).hasNext()) {
+                logger.debug("No thumbnails for " + hash + ", cannot write " + format);
+                return;
+            }
+            for (int size : sizes) {
+                Path target = thumbnailPath(hash, size);
+                Files.createDirectories(target.getParent());
+                Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+                try {
+                    ImageIO.write(scale(image, size, hasAlpha(format)), format, tempFile.toFile());
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+            logger.debug("Generated " + sizes.length + " thumbnails for " + hash);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not generate thumbnails for " + hash, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Halves the image until it is at most twice the target, then draws the final step bilinearly;
+     * a single bilinear step from a large image drops most of its pixels and aliases.
+     */
+    private static BufferedImage scale(BufferedImage image, int size, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        double ratio = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage current = image;
+        do {
+            int stepWidth = Math.max(width, current.getWidth() / 2);
+            int stepHeight = Math.max(height, current.getHeight() / 2);
+            if (stepWidth < width * 2 || stepHeight < height * 2) {
+                stepWidth = width;
+                stepHeight = height;
+            }
+            BufferedImage step = new BufferedImage(stepWidth, stepHeight, type);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(current, 0, 0, stepWidth, stepHeight, null);
+            graphics.dispose();
+            current = step;
+        } while (current.getWidth() != width || current.getHeight() != height);
+        return current;
+    }
+
+    private static boolean hasAlpha(String format) {
+        return List.of("png", "gif").contains(format);
+    }
+
+    private Path thumbnailPath(String hash, int size) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + "-" + size);
+    }
+}
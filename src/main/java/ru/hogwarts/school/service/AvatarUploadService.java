@@ -0,0 +1,209 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import ru.hogwarts.school.config.AfterCommit;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.AvatarUploadDto;
+import ru.hogwarts.school.exception.AvatarUploadConflictException;
+import ru.hogwarts.school.exception.AvatarUploadNotFoundException;
+import ru.hogwarts.school.exception.InvalidContentRangeException;
+import ru.hogwarts.school.exception.StudentNotFoundException;
+import ru.hogwarts.school.model.AvatarUpload;
+import ru.hogwarts.school.reposirory.AvatarUploadRepository;
+import ru.hogwarts.school.reposirory.StudentRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resumable avatar uploads. A session declares the size of the image, its bytes arrive in any number of
+ * ranges written in place into a part file under {@code path.to.avatars.folder}, and completing the session
+ * hands a copy of the file to {@link AvatarService#save(Long, Path, String)}; the student's avatar only changes then.
+ * <p>
+ * A range may start anywhere up to the bytes received so far, so a retried range simply overwrites them. The
+ * received count only moves after the written bytes are forced to disk, and a range cut off by a dropped
+ * connection still counts what arrived. Sessions untouched for {@code avatar.upload.expire-after} are deleted.
+ * <p>
+ * {@code avatar.upload.max-size} defaults to the 10MB a multipart upload and a row of the database storage
+ * take; the database storage and the thumbnail pool hold a whole image in memory, so raise them together.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class AvatarUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(AvatarUploadService.class);
+    private static final long TRANSFER_CHUNK_SIZE = 64 * 1024;
+    private static final String UPLOADS_FOLDER = "uploads";
+
+    private final AvatarUploadRepository uploadRepository;
+    private final StudentRepository studentRepository;
+    private final AvatarService avatarService;
+    private final long maxSize;
+    private final long maxChunkSize;
+    private final Duration expireAfter;
+    @Value("${path.to.avatars.folder}")
+    private Path avatarPath;
+
+    public AvatarUploadService(AvatarUploadRepository uploadRepository, StudentRepository studentRepository,
+                               AvatarService avatarService,
+                               @Value("${avatar.upload.max-size:10MB}") DataSize maxSize,
+                               @Value("${avatar.upload.max-chunk-size:8MB}") DataSize maxChunkSize,
+                               @Value("${avatar.upload.expire-after:24h}") Duration expireAfter) {
+        this.uploadRepository = uploadRepository;
+        this.studentRepository = studentRepository;
+        this.avatarService = avatarService;
+        this.maxSize = maxSize.toBytes();
+        this.maxChunkSize = maxChunkSize.toBytes();
+        this.expireAfter = expireAfter;
+    }
+
+    public AvatarUploadDto create(Long studentId, long size, String mediaType) throws IOException {
+        if (!studentRepository.existsById(studentId)) {
+            throw new StudentNotFoundException();
+        }
+        if (size <= 0 || size > maxSize) {
+            throw new InvalidContentRangeException("Avatar size must be between 1 and " + maxSize + " bytes");
+        }
+        AvatarUpload upload = new AvatarUpload(UUID.randomUUID().toString(), studentId, mediaType, size, Instant.now());
+        Files.createDirectories(avatarPath.resolve(UPLOADS_FOLDER));
+        Files.createFile(partFile(upload.getId()));
+        try {
+            uploadRepository.save(upload);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(partFile(upload.getId()));
+            throw e;
+        }
+        return AvatarUploadDto.of(upload);
+    }
+
+    public AvatarUploadDto get(String id) {
+        return AvatarUploadDto.of(find(id));
+    }
+
+    /**
+     * Writes bytes {@code first} to {@code last} of the image from {@code body}; {@code size}, when the client
+     * sends it, must be the declared one. Runs outside a transaction, so no connection is held while the bytes arrive.
+     */
+    public AvatarUploadDto write(String id, long first, long last, Long size, InputStream body) throws IOException {
+        AvatarUpload upload = find(id);
+        if (size != null && size != upload.getSize()) {
+            throw new InvalidContentRangeException("Upload " + id + " is " + upload.getSize() + " bytes, not " + size);
+        }
+        if (first > last || last >= upload.getSize() || last - first + 1 > maxChunkSize) {
+            throw new InvalidContentRangeException("Range " + first + "-" + last + " is outside the avatar of "
+                    + upload.getSize() + " bytes or longer than " + maxChunkSize + " bytes");
+        }
+        if (first > upload.getReceived()) {
+            throw new AvatarUploadConflictException("Upload " + id + " continues at byte " + upload.getReceived());
+        }
+        long expected = last - first + 1;
+        long written = 0;
+        try (ReadableByteChannel source = Channels.newChannel(body);
+             FileChannel target = FileChannel.open(partFile(id), StandardOpenOption.WRITE)) {
+            try {
+                while (written < expected) {
+                    long transferred = target.transferFrom(source, first + written, Math.min(TRANSFER_CHUNK_SIZE, expected - written));
+                    if (transferred == 0) {
+                        break;
+                    }
+                    written += transferred;
+                }
+            } finally {
+                if (written > 0) {
+                    target.force(false);
+                    uploadRepository.advance(id, first + written, Instant.now());
+                    upload.setReceived(Math.max(upload.getReceived(), first + written));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new AvatarUploadNotFoundException("Upload " + id + " was completed or deleted", e);
+        }
+        if (written < expected) {
+            throw new InvalidContentRangeException("Expected " + expected + " bytes, received " + written);
+        }
+        return AvatarUploadDto.of(upload);
+    }
+
+    /**
+     * Makes the received image the student's avatar and ends the session. The storage may move the file it is
+     * given, so it gets a copy: the part file stays until the completion commits, and a rolled back one can be retried.
+     */
+    @Transactional
+    public Long complete(String id) throws IOException {
+        AvatarUpload upload = uploadRepository.findForUpdate(id).orElseThrow(AvatarUploadNotFoundException::new);
+        if (upload.getReceived() < upload.getSize()) {
+            throw new AvatarUploadConflictException("Upload " + id + " has " + upload.getReceived() + " of "
+                    + upload.getSize() + " bytes");
+        }
+        if (!studentRepository.existsById(upload.getStudentId())) {
+            throw new StudentNotFoundException();
+        }
+        Path copy = Files.createTempFile(partFile(id).getParent(), id + "-", ".complete");
+        Long avatarId;
+        try {
+            Files.copy(partFile(id), copy, StandardCopyOption.REPLACE_EXISTING);
+            avatarId = avatarService.save(upload.getStudentId(), copy, upload.getMediaType());
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+        uploadRepository.delete(upload);
+        deletePartAfterCommit(id);
+        return avatarId;
+    }
+
+    @Transactional
+    public void delete(String id) {
+        uploadRepository.delete(find(id));
+        deletePartAfterCommit(id);
+    }
+
+    @Scheduled(fixedDelayString = "${avatar.upload.cleanup-interval-ms:3600000}",
+            initialDelayString = "${avatar.upload.cleanup-initial-delay-ms:60000}")
+    public void expire() {
+        List<String> ids = uploadRepository.findIdsUpdatedBefore(Instant.now().minus(expireAfter));
+        if (ids.isEmpty()) {
+            return;
+        }
+        uploadRepository.deleteAllByIdInBatch(ids);
+        ids.forEach(this::deletePart);
+        logger.info("Deleted " + ids.size() + " expired avatar uploads");
+    }
+
+    private AvatarUpload find(String id) {
+        return uploadRepository.findById(id).orElseThrow(AvatarUploadNotFoundException::new);
+    }
+
+    private Path partFile(String id) {
+        return avatarPath.resolve(UPLOADS_FOLDER).resolve(id + ".part");
+    }
+
+    private void deletePartAfterCommit(String id) {
+        AfterCommit.run(() -> deletePart(id));
+    }
+
+    private void deletePart(String id) {
+        try {
+            Files.deleteIfExists(partFile(id));
+        } catch (IOException e) {
+            logger.warn("Could not delete avatar upload " + id, e);
+        }
+    }
+}
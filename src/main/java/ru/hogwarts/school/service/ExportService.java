@@ -0,0 +1,88 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.reposirory.FacultyRepository;
+import ru.hogwarts.school.reposirory.StudentRepository;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes whole tables as newline-delimited JSON from a database cursor. The persistence context
+ * is cleared every {@value #CLEAR_INTERVAL} rows, so memory use does not depend on the table size.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+    private static final int CLEAR_INTERVAL = 500;
+
+    private final StudentRepository studentRepository;
+    private final FacultyRepository facultyRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter studentWriter;
+    private final ObjectWriter facultyWriter;
+
+    public ExportService(StudentRepository studentRepository, FacultyRepository facultyRepository,
+                         EntityManager entityManager, ObjectMapper objectMapper) {
+        this.studentRepository = studentRepository;
+        this.facultyRepository = facultyRepository;
+        this.entityManager = entityManager;
+        this.studentWriter = ndjsonWriter(objectMapper, Student.class);
+        this.facultyWriter = ndjsonWriter(objectMapper, Faculty.class);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportStudents(OutputStream out) throws IOException {
+        try (Stream<Student> students = studentRepository.streamAll()) {
+            write(students, studentWriter, out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportFaculties(OutputStream out) throws IOException {
+        try (Stream<Faculty> faculties = facultyRepository.streamAll()) {
+            write(faculties, facultyWriter, out);
+        }
+    }
+
+    private <T> void write(Stream<T> rows, ObjectWriter objectWriter, OutputStream out) throws IOException {
+        long count = 0;
+        try (SequenceWriter writer = objectWriter.writeValues(out)) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                if (++count % CLEAR_INTERVAL == 0) {
+                    writer.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        if (count > 0) {
+            out.write('\n');
+        }
+        logger.debug("Exported " + count + " rows");
+    }
+
+    private static ObjectWriter ndjsonWriter(ObjectMapper objectMapper, Class<?> type) {
+        return objectMapper.writerFor(type)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+}
@@ -1,80 +1,137 @@
 package ru.hogwarts.school.service;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.cache.FacultyCache;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.CacheRegionStatsDto;
+import ru.hogwarts.school.dto.CursorPage;
+import ru.hogwarts.school.dto.MultiGetDto;
 import ru.hogwarts.school.exception.FacultyNotFoundException;
 import ru.hogwarts.school.exception.StudentNotFoundException;
 import ru.hogwarts.school.model.Faculty;
-import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.reposirory.FacultyRepository;
+import ru.hogwarts.school.reposirory.MultiIdLoader;
 import ru.hogwarts.school.reposirory.StudentRepository;
+import ru.hogwarts.school.search.FacultySearch;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class FacultyService {
-    private static final Logger logger = LoggerFactory.getLogger(FacultyService.class);
     @Autowired
     private final FacultyRepository facultyRepository;
     private final StudentRepository studentRepository;
+    private final FacultyCache facultyCache;
+    private final FacultySearch facultySearch;
+    private final TableVersions tableVersions;
+    private final MultiIdLoader multiIdLoader;
 
-    public FacultyService(FacultyRepository facultyRepository, StudentRepository studentRepository) {
+    public FacultyService(FacultyRepository facultyRepository, StudentRepository studentRepository, FacultyCache facultyCache,
+                          FacultySearch facultySearch, TableVersions tableVersions, MultiIdLoader multiIdLoader) {
         this.facultyRepository = facultyRepository;
         this.studentRepository = studentRepository;
+        this.facultyCache = facultyCache;
+        this.facultySearch = facultySearch;
+        this.tableVersions = tableVersions;
+        this.multiIdLoader = multiIdLoader;
     }
 
+    @Transactional
     public Faculty create(Faculty faculty) {
-        logger.info("Start method create");
-        return facultyRepository.save(faculty);
+        Faculty created = facultyRepository.save(faculty);
+        facultyCache.evictQueriesAfterCommit();
+        facultySearch.saved(created);
+        tableVersions.bump(TableVersions.FACULTY);
+        return created;
 
     }
 
+    @Transactional
     public Faculty update(Long id, Faculty faculty) {
-        logger.info("Start method update");
         Faculty existingFaculty = facultyRepository.findById(id).orElseThrow(FacultyNotFoundException::new);
         existingFaculty.setColor(faculty.getColor());
         existingFaculty.setName(faculty.getName());
-        return facultyRepository.save(existingFaculty);
+        Faculty updated = facultyRepository.save(existingFaculty);
+        facultyCache.evictQueriesAfterCommit();
+        facultySearch.saved(updated);
+        tableVersions.bump(TableVersions.FACULTY);
+        return updated;
 
 
     }
 
 
+    @Transactional(readOnly = true)
     public Faculty getById(Long id) {
-        logger.info("Start method getById");
         return facultyRepository.findById(id).orElseThrow(FacultyNotFoundException::new);
 
     }
 
+    /**
+     * Faculties for each of {@code ids}, in one batched load; ids without a faculty are reported, not thrown.
+     */
+    @Transactional(readOnly = true)
+    public MultiGetDto<Faculty> getByIds(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        return MultiGetDto.of(distinctIds, multiIdLoader.load(Faculty.class, distinctIds), Function.identity());
+    }
+
+    public String getListETag() {
+        return tableVersions.eTag(TableVersions.FACULTY);
+    }
+
+    @Transactional(readOnly = true)
     public Collection<Faculty> getAll() {
-        logger.info("Start method getAll");
         return facultyRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<Faculty> getPage(String cursor, int limit) {
+        List<Faculty> rows = facultyRepository.findAllByIdGreaterThanOrderById(CursorPage.decode(cursor), PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, Faculty::getId);
+    }
+
+    @Transactional
     public Faculty remove(Long id) {
-        logger.info("Start method remove");
         Faculty faculty = facultyRepository.findById(id).orElseThrow(FacultyNotFoundException::new);
         facultyRepository.delete(faculty);
+        facultyCache.evict(id);
+        facultyCache.evictQueriesAfterCommit();
+        facultySearch.removed(id);
+        tableVersions.bump(TableVersions.FACULTY);
         return faculty;
     }
 
 
+    @Transactional(readOnly = true)
     public Collection<Faculty> getAllByColor(String color) {
-        logger.info("Start method getAllByColor");
         return facultyRepository.findAllByColor(color);
     }
 
-    public Collection<Faculty> getAllByNameOrColor(String color, String name) {
-        logger.info("Start method getAllByNameOrColor");
-        return facultyRepository.findAllByColorLikeIgnoreCaseOrNameLikeIgnoreCase(color, name);
+    /**
+     * Faculties whose name or color contains {@code colorOrName}, ignoring case.
+     */
+    @Transactional(readOnly = true)
+    public Collection<Faculty> getAllByNameOrColor(String colorOrName) {
+        return facultySearch.search(colorOrName);
+    }
+
+    public List<CacheRegionStatsDto> getCacheStats() {
+        return facultyCache.getStats();
     }
 
+    @Transactional(readOnly = true)
     public Faculty getByStudentId(Long studentId) {
-        logger.info("Start method getStudentId");
-        return studentRepository.findById(studentId)
-                .map(Student::getFaculty)
+        return studentRepository.findFacultyByStudentId(studentId)
                 .orElseThrow(StudentNotFoundException::new);
     }
 }
@@ -0,0 +1,283 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.BulkImportErrorDto;
+import ru.hogwarts.school.dto.BulkImportResultDto;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.search.StudentNameIndex;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Imports students from a JSON array or CSV stream. Rows are persisted in transactions of
+ * {@code student.bulk.chunk-size} rows, so Hibernate sends them as JDBC batches. A chunk that violates
+ * a constraint is rolled back and retried row by row to find and report the offending rows.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class StudentImportService {
+    private static final Logger logger = LoggerFactory.getLogger(StudentImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String INVALID_ROW = "invalid_row";
+    private static final String MALFORMED_INPUT = "malformed_input";
+    private static final String CONSTRAINT_VIOLATION = "constraint_violation";
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final StudentStatisticsService statisticsService;
+    private final StudentNameIndex nameIndex;
+    private final TableVersions tableVersions;
+    private final int chunkSize;
+
+    public StudentImportService(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper, StudentStatisticsService statisticsService,
+                                StudentNameIndex nameIndex, TableVersions tableVersions,
+                                @Value("${student.bulk.chunk-size:1000}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.statisticsService = statisticsService;
+        this.nameIndex = nameIndex;
+        this.tableVersions = tableVersions;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads a JSON array of students shaped like the {@code POST /student} body. Ids are ignored. An element
+     * that is not an object is rejected as its own row; a cut-off array or content after it is malformed input.
+     */
+    public BulkImportResultDto importJson(InputStream in) throws IOException {
+        Import anImport = new Import();
+        long row = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                anImport.reject(1, null, MALFORMED_INPUT, "Expected a JSON array of students");
+                return anImport.finish();
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    anImport.reject(row + 1, null, MALFORMED_INPUT, "Unexpected end of input, expected ']'");
+                    return anImport.finish();
+                }
+                row++;
+                if (token != JsonToken.START_OBJECT) {
+                    anImport.reject(row, null, INVALID_ROW, "Expected a student object, got " + parser.getText());
+                    parser.skipChildren();
+                    continue;
+                }
+                JsonNode node = parser.readValueAsTree();
+                Student student;
+                try {
+                    student = objectMapper.treeToValue(node, Student.class);
+                } catch (JsonProcessingException e) {
+                    anImport.reject(row, node.path("name").asText(null), INVALID_ROW, e.getOriginalMessage());
+                    continue;
+                }
+                Long facultyId = StudentStatisticsService.facultyIdOf(student);
+                anImport.add(new PendingRow(row, student.getName(), student.getAge(), facultyId));
+            }
+            if (parser.nextToken() != null) {
+                anImport.reject(row + 1, null, MALFORMED_INPUT, "Unexpected content after the array");
+            }
+        } catch (JsonProcessingException e) {
+            anImport.reject(row + 1, null, MALFORMED_INPUT, e.getOriginalMessage());
+        }
+        return anImport.finish();
+    }
+
+    /**
+     * Reads UTF-8 CSV with the columns {@code name,age[,facultyId]}. A header line naming the columns
+     * is optional and may reorder them; rows are numbered by line.
+     */
+    public BulkImportResultDto importCsv(InputStream in) throws IOException {
+        Import anImport = new Import();
+        int nameColumn = 0;
+        int ageColumn = 1;
+        int facultyColumn = 2;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        long row = 0;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = splitCsv(line);
+            if (row == 1 && fields.stream().anyMatch("name"::equalsIgnoreCase)) {
+                List<String> header = fields.stream().map(String::toLowerCase).collect(Collectors.toList());
+                nameColumn = header.indexOf("name");
+                ageColumn = header.indexOf("age");
+                facultyColumn = Math.max(header.indexOf("facultyid"), header.indexOf("faculty_id"));
+                continue;
+            }
+            String name = field(fields, nameColumn);
+            try {
+                String faculty = field(fields, facultyColumn);
+                Long facultyId = faculty == null || faculty.isEmpty() ? null : Long.valueOf(faculty);
+                anImport.add(new PendingRow(row, name, Integer.parseInt(field(fields, ageColumn)), facultyId));
+            } catch (NumberFormatException e) {
+                anImport.reject(row, name, INVALID_ROW, "Age and faculty id must be numbers");
+            }
+        }
+        return anImport.finish();
+    }
+
+    private void persist(List<PendingRow> rows) {
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        List<Student> students = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            Student student = new Student(null, row.name, row.age);
+            if (row.facultyId != null) {
+                student.setFaculty(entityManager.getReference(Faculty.class, row.facultyId));
+            }
+            entityManager.persist(student);
+            students.add(student);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statisticsService.onCreated(students);
+        nameIndex.saved(students);
+        tableVersions.bump(TableVersions.STUDENT);
+    }
+
+    private static ConstraintViolationException constraintViolation(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return (ConstraintViolationException) cause;
+            }
+        }
+        throw e;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static class PendingRow {
+        private final long row;
+        private final String name;
+        private final int age;
+        private final Long facultyId;
+
+        private PendingRow(long row, String name, int age, Long facultyId) {
+            this.row = row;
+            this.name = name;
+            this.age = age;
+            this.facultyId = facultyId;
+        }
+    }
+
+    /**
+     * State of one import: the chunk being collected and the counters of the result.
+     */
+    private class Import {
+        private final List<PendingRow> chunk = new ArrayList<>(chunkSize);
+        private final List<BulkImportErrorDto> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        private void add(PendingRow row) {
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                flushChunk();
+            }
+        }
+
+        private void reject(long row, String name, String error, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BulkImportErrorDto(row, name, error, message));
+            }
+        }
+
+        private BulkImportResultDto finish() {
+            flushChunk();
+            logger.debug("Imported " + imported + " students, rejected " + failed);
+            return new BulkImportResultDto(imported, failed, errors);
+        }
+
+        private void flushChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(chunk));
+                imported += chunk.size();
+            } catch (PersistenceException | DataIntegrityViolationException e) {
+                constraintViolation(e);
+                for (PendingRow row : chunk) {
+                    persistRow(row);
+                }
+            }
+            chunk.clear();
+        }
+
+        private void persistRow(PendingRow row) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(List.of(row)));
+                imported++;
+            } catch (PersistenceException | DataIntegrityViolationException e) {
+                ConstraintViolationException violation = constraintViolation(e);
+                String constraint = violation.getConstraintName();
+                reject(row.row, row.name, constraint == null ? CONSTRAINT_VIOLATION : constraint.toLowerCase(),
+                        violation.getSQLException().getMessage());
+            }
+        }
+    }
+}
@@ -1,105 +1,164 @@
 package ru.hogwarts.school.service;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.CursorPage;
+import ru.hogwarts.school.dto.MultiGetDto;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.dto.StudentNameDto;
+import ru.hogwarts.school.dto.StudentStatsDto;
 import ru.hogwarts.school.exception.FacultyNotFoundException;
 import ru.hogwarts.school.exception.StudentNotFoundException;
-import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
-import ru.hogwarts.school.reposirory.AvatarRepository;
 import ru.hogwarts.school.reposirory.FacultyRepository;
+import ru.hogwarts.school.reposirory.MultiIdLoader;
 import ru.hogwarts.school.reposirory.StudentRepository;
+import ru.hogwarts.school.search.StudentNameIndex;
 
-import javax.transaction.Transactional;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class StudentService {
-    private static final Logger logger = LoggerFactory.getLogger(StudentService.class);
     @Autowired
     private final StudentRepository studentRepository;
     private final FacultyRepository facultyRepository;
-    private final AvatarRepository avatarRepository;
+    private final AvatarService avatarService;
+    private final StudentStatisticsService statisticsService;
+    private final StudentNameIndex nameIndex;
+    private final TableVersions tableVersions;
+    private final MultiIdLoader multiIdLoader;
 
 
-    public StudentService(StudentRepository studentRepository, FacultyRepository facultyRepository, AvatarRepository avatarRepository) {
+    public StudentService(StudentRepository studentRepository, FacultyRepository facultyRepository, AvatarService avatarService,
+                          StudentStatisticsService statisticsService, StudentNameIndex nameIndex, TableVersions tableVersions,
+                          MultiIdLoader multiIdLoader) {
         this.studentRepository = studentRepository;
         this.facultyRepository = facultyRepository;
-        this.avatarRepository = avatarRepository;
+        this.avatarService = avatarService;
+        this.statisticsService = statisticsService;
+        this.nameIndex = nameIndex;
+        this.tableVersions = tableVersions;
+        this.multiIdLoader = multiIdLoader;
     }
 
-    public Student create(Student student) {
-        logger.info("Start method create");
-        return studentRepository.save(student);
+    @Transactional
+    public StudentDto create(Student student) {
+        Student created = studentRepository.save(student);
+        statisticsService.onCreated(created);
+        nameIndex.saved(created);
+        tableVersions.bump(TableVersions.STUDENT);
+        return StudentDto.of(created);
     }
 
-    public Student update(Long id, Student student) {
-        logger.info("Start method update");
+    @Transactional
+    public StudentDto update(Long id, Student student) {
         Student existStudent = studentRepository.findById(id).orElseThrow(StudentNotFoundException::new);
+        Long oldFacultyId = StudentStatisticsService.facultyIdOf(existStudent);
+        int oldAge = existStudent.getAge();
         existStudent.setAge(student.getAge());
         existStudent.setName(student.getName());
-        return studentRepository.save(student);
+        existStudent.setFaculty(student.getFaculty());
+        Student updated = studentRepository.save(existStudent);
+        statisticsService.onUpdated(oldFacultyId, oldAge, updated);
+        nameIndex.saved(updated);
+        tableVersions.bump(TableVersions.STUDENT);
+        return StudentDto.of(updated);
+    }
+
+    @Transactional(readOnly = true)
+    public StudentDto getById(Long id) {
+        return studentRepository.findDtoById(id).orElseThrow(StudentNotFoundException::new);
+
+    }
+
+    /**
+     * Students for each of {@code ids}, in one batched load; ids without a student are reported, not thrown.
+     * Their faculties are initialized together, see {@link ru.hogwarts.school.model.Faculty}.
+     */
+    @Transactional(readOnly = true)
+    public MultiGetDto<StudentDto> getByIds(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        return MultiGetDto.of(distinctIds, multiIdLoader.load(Student.class, distinctIds), StudentDto::of);
     }
 
-    public Student getById(Long id) {
-        logger.info("Start method getById");
-        return studentRepository.findById(id).orElseThrow(StudentNotFoundException::new);
+    /**
+     * Entity tag of the student lists. They embed faculties, so it changes with either table.
+     */
+    public String getListETag() {
+        return tableVersions.eTag(TableVersions.STUDENT, TableVersions.FACULTY);
+    }
 
+    @Transactional(readOnly = true)
+    public Collection<StudentDto> getAll() {
+        return studentRepository.findAllDtos();
     }
 
-    public Collection<Student> getAll() {
-        logger.info("Start method getAll");
-        return studentRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<StudentDto> getPage(String cursor, int limit) {
+        List<StudentDto> rows = studentRepository.findAllByIdGreaterThanOrderById(CursorPage.decode(cursor), PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, StudentDto::getId);
     }
 
     @Transactional
-    public Student remove(Long id) {
-        logger.info("Start method remove");
-        avatarRepository.deleteByStudent_id(id);
+    public StudentDto remove(Long id) {
+        avatarService.deleteByStudentId(id);
         Student student = studentRepository.findById(id).orElseThrow(StudentNotFoundException::new);
         studentRepository.delete(student);
-        return student;
+        statisticsService.onRemoved(student);
+        nameIndex.removed(id);
+        tableVersions.bump(TableVersions.STUDENT);
+        return StudentDto.of(student);
     }
 
 
-    public Collection<Student> getAllByAge(int age) {
-        logger.info("Start method getAllByAge");
+    @Transactional(readOnly = true)
+    public Collection<StudentDto> getAllByAge(int age) {
         return studentRepository.findAllByAge(age);
 
     }
 
-    public Collection<Student> getByAge(int min, int max) {
-        logger.info("Start method getByAge");
+    @Transactional(readOnly = true)
+    public Collection<StudentDto> getByAge(int min, int max) {
         return studentRepository.findAllByAgeBetween(min, max);
     }
 
-    public Collection<Student> getByFacultyId(Long facultyId) {
-        logger.info("Start method getByFacultyId");
-        return facultyRepository.findById(facultyId)
-                .map(Faculty::getStudents)
-                .orElseThrow(FacultyNotFoundException::new);
+    @Transactional(readOnly = true)
+    public Collection<StudentDto> getByFacultyId(Long facultyId) {
+        List<StudentDto> students = studentRepository.findAllByFacultyId(facultyId);
+        if (students.isEmpty() && !facultyRepository.existsById(facultyId)) {
+            throw new FacultyNotFoundException();
+        }
+        return students;
     }
 
     public Long getCountStudent() {
-        logger.info("Start method getCountStudent");
-        return studentRepository.getCountStudents();
+        return statisticsService.getCount();
     }
 
     public Double getAverageAgeStudents() {
-        logger.info("Start method getAverageAgeStudent");
-        return studentRepository.getAverageAgeStudents();
+        return statisticsService.getAverageAge();
+    }
+
+    public List<StudentNameDto> searchByPrefix(String prefix, int limit) {
+        return nameIndex.findByPrefix(prefix, limit);
+    }
+
+    public StudentStatsDto getStats() {
+        return statisticsService.getStats();
     }
 
-    public List<Student> findLastFiveStudents() {
-        logger.info("Start method findLastFiveStudents");
+    @Transactional(readOnly = true)
+    public List<StudentDto> findLastFiveStudents() {
         PageRequest pageRequest = PageRequest.of(0, 5);
-        Page<Student> studentsPage = studentRepository.findLastFiveStudents(pageRequest);
-        return studentsPage.getContent();
+        return studentRepository.findLastStudents(pageRequest);
 
     }
 }
@@ -0,0 +1,144 @@
+package ru.hogwarts.school.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.config.AfterCommit;
+import ru.hogwarts.school.dto.FacultyStatsDto;
+import ru.hogwarts.school.dto.FacultyStudentTotals;
+import ru.hogwarts.school.dto.StudentStatsDto;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.reposirory.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory student count and age sum, overall and per faculty. Seeded from the database at startup,
+ * updated by {@link StudentService} on every change and periodically reconciled with the database.
+ */
+@Service
+public class StudentStatisticsService {
+    private static final Logger logger = LoggerFactory.getLogger(StudentStatisticsService.class);
+    private final StudentRepository studentRepository;
+    /**
+     * Faculty id (or {@code null} for students without a faculty) to {count, age sum}.
+     */
+    private Map<Long, long[]> totalsByFaculty = new HashMap<>();
+    private long count;
+    private long ageSum;
+    private long changes;
+    private boolean seeded;
+
+    public StudentStatisticsService(StudentRepository studentRepository) {
+        this.studentRepository = studentRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    /**
+     * Replaces the aggregate with fresh database totals, unless a change was applied while they were
+     * being read; that run is skipped and the next one catches up.
+     */
+    @Scheduled(fixedDelayString = "${student.stats.reconcile-interval-ms:300000}",
+            initialDelayString = "${student.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long changesBefore;
+        synchronized (this) {
+            changesBefore = changes;
+        }
+        Map<Long, long[]> totals = new HashMap<>();
+        long newCount = 0;
+        long newAgeSum = 0;
+        for (FacultyStudentTotals row : studentRepository.getTotalsByFaculty()) {
+            long rowAgeSum = row.getAgeSum() == null ? 0 : row.getAgeSum();
+            totals.put(row.getFacultyId(), new long[]{row.getCount(), rowAgeSum});
+            newCount += row.getCount();
+            newAgeSum += rowAgeSum;
+        }
+        synchronized (this) {
+            if (changes != changesBefore) {
+                logger.debug("Students changed during reconciliation, keeping incremental totals");
+                return;
+            }
+            if (seeded && (newCount != count || newAgeSum != ageSum)) {
+                logger.warn("Student statistics drifted: count " + count + " -> " + newCount + ", age sum " + ageSum + " -> " + newAgeSum);
+            }
+            totalsByFaculty = totals;
+            count = newCount;
+            ageSum = newAgeSum;
+            seeded = true;
+        }
+    }
+
+    public void onCreated(Student student) {
+        Long facultyId = facultyIdOf(student);
+        int age = student.getAge();
+        AfterCommit.run(() -> apply(facultyId, 1, age));
+    }
+
+    public void onCreated(Collection<Student> students) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                for (Student student : students) {
+                    apply(facultyIdOf(student), 1, student.getAge());
+                }
+            }
+        });
+    }
+
+    public void onUpdated(Long oldFacultyId, int oldAge, Student updated) {
+        Long facultyId = facultyIdOf(updated);
+        int age = updated.getAge();
+        AfterCommit.run(() -> {
+            apply(oldFacultyId, -1, -oldAge);
+            apply(facultyId, 1, age);
+        });
+    }
+
+    public void onRemoved(Student student) {
+        Long facultyId = facultyIdOf(student);
+        int age = student.getAge();
+        AfterCommit.run(() -> apply(facultyId, -1, -age));
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized Double getAverageAge() {
+        return count == 0 ? null : (double) ageSum / count;
+    }
+
+    public synchronized StudentStatsDto getStats() {
+        List<FacultyStatsDto> byFaculty = new ArrayList<>(totalsByFaculty.size());
+        totalsByFaculty.forEach((facultyId, totals) ->
+                byFaculty.add(new FacultyStatsDto(facultyId, totals[0], totals[0] == 0 ? null : (double) totals[1] / totals[0])));
+        return new StudentStatsDto(count, getAverageAge(), byFaculty);
+    }
+
+    public static Long facultyIdOf(Student student) {
+        return student.getFaculty() == null ? null : student.getFaculty().getId();
+    }
+
+    private synchronized void apply(Long facultyId, int countDelta, long ageDelta) {
+        changes++;
+        count += countDelta;
+        ageSum += ageDelta;
+        long[] totals = totalsByFaculty.computeIfAbsent(facultyId, id -> new long[2]);
+        totals[0] += countDelta;
+        totals[1] += ageDelta;
+        if (totals[0] == 0) {
+            totalsByFaculty.remove(facultyId);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ru.hogwarts.school.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Per-table change counters in {@code table_version}. Mutations bump them in the transaction that makes the
+ * change, so a counter moves exactly when the change commits, on every instance, and reading one is a primary
+ * key lookup instead of the list query it stands for.
+ * <p>
+ * The counter row stays locked until the bumping transaction ends, which serializes the writers of one table.
+ */
+@Service
+public class TableVersions {
+    public static final String STUDENT = "student";
+    public static final String FACULTY = "faculty";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public TableVersions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bump(String table) {
+        if (jdbcTemplate.update("UPDATE table_version SET version = version + 1 WHERE name = ?", table) == 0) {
+            jdbcTemplate.update("INSERT INTO table_version (name, version) VALUES (?, 1)", table);
+        }
+    }
+
+    /**
+     * The raw version tag, which changes whenever any of {@code tables} does; the controllers send it as a weak ETag.
+     */
+    @Transactional(readOnly = true)
+    public String eTag(String... tables) {
+        Map<String, Long> versions = new HashMap<>();
+        namedJdbcTemplate.query("SELECT name, version FROM table_version WHERE name IN (:names)",
+                Map.of("names", List.of(tables)),
+                (RowCallbackHandler) rs -> versions.put(rs.getString("name"), rs.getLong("version")));
+        return Arrays.stream(tables)
+                .map(table -> String.valueOf(versions.getOrDefault(table, 0L)))
+                .collect(Collectors.joining("-"));
+    }
+}
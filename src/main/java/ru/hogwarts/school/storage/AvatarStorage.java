@@ -0,0 +1,36 @@
+package ru.hogwarts.school.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Where avatar images live, keyed by the SHA-256 of their content. The backend is chosen by
+ * {@code avatar.storage.mode}: {@code filesystem}, {@code database} or {@code tiered}.
+ */
+public interface AvatarStorage {
+
+    /**
+     * Stores the content of {@code source} under {@code key}. The file may be moved into the storage;
+     * the caller deletes it if it is still there.
+     */
+    void put(String key, Path source, long size) throws IOException;
+
+    /**
+     * The content stored under {@code key}, or {@code null} if there is none.
+     */
+    Resource get(String key) throws IOException;
+
+    boolean contains(String key);
+
+    void delete(String key) throws IOException;
+
+    /**
+     * The plain backends this storage keeps its content in.
+     */
+    default List<AvatarStorage> backends() {
+        return List.of(this);
+    }
+}
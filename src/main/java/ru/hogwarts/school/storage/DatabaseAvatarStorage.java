@@ -0,0 +1,52 @@
+package ru.hogwarts.school.storage;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Stores each image as one {@code bytea} row of {@code avatar_blob_content}.
+ */
+public class DatabaseAvatarStorage implements AvatarStorage {
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseAvatarStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Streams the file into the row so the JDBC driver reads it in chunks instead of binding
+     * a {@code byte[]} of the whole image. {@code source} is left in place.
+     */
+    @Override
+    public void put(String key, Path source, long size) throws IOException {
+        try (InputStream data = Files.newInputStream(source)) {
+            jdbcTemplate.update("INSERT INTO avatar_blob_content (hash, data) VALUES (?, ?)", ps -> {
+                ps.setString(1, key);
+                ps.setBinaryStream(2, data, size);
+            });
+        }
+    }
+
+    @Override
+    public Resource get(String key) {
+        List<byte[]> data = jdbcTemplate.queryForList("SELECT data FROM avatar_blob_content WHERE hash = ?", byte[].class, key);
+        return data.isEmpty() ? null : new ByteArrayResource(data.get(0));
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM avatar_blob_content WHERE hash = ?", Integer.class, key).isEmpty();
+    }
+
+    @Override
+    public void delete(String key) {
+        jdbcTemplate.update("DELETE FROM avatar_blob_content WHERE hash = ?", key);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.hogwarts.school.storage;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores each image as a file fanned out by the first two bytes of its key ({@code ab/cd/abcd...}),
+ * so no directory grows past 256 entries per level.
+ */
+public class FileSystemAvatarStorage implements AvatarStorage {
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+
+    public FileSystemAvatarStorage(Path root) {
+        this.root = root;
+    }
+
+    public Path pathOf(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    @Override
+    public void put(String key, Path source, long size) throws IOException {
+        Path path = pathOf(key);
+        Files.createDirectories(path.getParent());
+        Files.move(source, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public Resource get(String key) {
+        Path path = pathOf(key);
+        return Files.isRegularFile(path) ? new FileSystemResource(path) : null;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return Files.isRegularFile(pathOf(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(pathOf(key));
+    }
+
+    /**
+     * Keys of the stored images; thumbnails and upload files in the same folders are skipped.
+     */
+    public List<String> keys() {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> KEY.matcher(name).matches())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ru.hogwarts.school.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps recently read images on local disk and the rest in the database; each image is in one tier.
+ * New images go to disk. Images not read for {@code avatar.storage.tiered.cold-after} are moved to the
+ * database, and moved back to disk when read again. A move writes the new copy before deleting the old
+ * one, so concurrent reads always find one of them.
+ */
+public class TieredAvatarStorage implements AvatarStorage {
+    private static final Logger logger = LoggerFactory.getLogger(TieredAvatarStorage.class);
+    private static final int LOCK_STRIPES = 64;
+
+    private final FileSystemAvatarStorage hot;
+    private final DatabaseAvatarStorage cold;
+    private final long coldAfterMillis;
+    private final Path uploadFolder;
+    private final Map<String, Long> lastRead = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public TieredAvatarStorage(FileSystemAvatarStorage hot, DatabaseAvatarStorage cold, Duration coldAfter, Path uploadFolder) {
+        this.hot = hot;
+        this.cold = cold;
+        this.coldAfterMillis = coldAfter.toMillis();
+        this.uploadFolder = uploadFolder;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void put(String key, Path source, long size) throws IOException {
+        hot.put(key, source, size);
+        lastRead.put(key, System.currentTimeMillis());
+    }
+
+    @Override
+    public Resource get(String key) throws IOException {
+        Resource content = hot.get(key);
+        if (content == null) {
+            content = promote(key);
+        }
+        if (content != null) {
+            lastRead.put(key, System.currentTimeMillis());
+        }
+        return content;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return hot.contains(key) || cold.contains(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        ReentrantLock lock = lockOf(key);
+        lock.lock();
+        try {
+            hot.delete(key);
+            cold.delete(key);
+            lastRead.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<AvatarStorage> backends() {
+        return List.of(hot, cold);
+    }
+
+    /**
+     * Moves the images on disk that were not read within {@code cold-after} to the database.
+     * Images not read since startup are judged by their file's modification time.
+     */
+    @Scheduled(fixedDelayString = "${avatar.storage.tiered.demote-interval-ms:3600000}",
+            initialDelayString = "${avatar.storage.tiered.demote-interval-ms:3600000}")
+    public void demote() {
+        long threshold = System.currentTimeMillis() - coldAfterMillis;
+        int demoted = 0;
+        for (String key : hot.keys()) {
+            try {
+                if (lastRead(key) < threshold && demote(key, threshold)) {
+                    demoted++;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not move avatar " + key + " to the database", e);
+            }
+        }
+        logger.debug("Moved " + demoted + " avatars to the database");
+    }
+
+    private boolean demote(String key, long threshold) throws IOException {
+        ReentrantLock lock = lockOf(key);
+        lock.lock();
+        try {
+            Path path = hot.pathOf(key);
+            if (!Files.isRegularFile(path) || lastRead(key) >= threshold) {
+                return false;
+            }
+            try {
+                cold.put(key, path, Files.size(path));
+            } catch (DuplicateKeyException e) {
+                logger.debug("Avatar " + key + " is already in the database");
+            }
+            hot.delete(key);
+            lastRead.remove(key);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Resource promote(String key) throws IOException {
+        ReentrantLock lock = lockOf(key);
+        lock.lock();
+        try {
+            Resource content = hot.get(key);
+            if (content != null) {
+                return content;
+            }
+            Resource stored = cold.get(key);
+            if (stored == null) {
+                return null;
+            }
+            Files.createDirectories(uploadFolder);
+            Path tempFile = Files.createTempFile(uploadFolder, key, ".promote");
+            try {
+                try (InputStream in = stored.getInputStream()) {
+                    Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                hot.put(key, tempFile, stored.contentLength());
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            cold.delete(key);
+            return hot.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long lastRead(String key) throws IOException {
+        Long read = lastRead.get(key);
+        return read != null ? read : Files.getLastModifiedTime(hot.pathOf(key)).toMillis();
+    }
+
+    private ReentrantLock lockOf(String key) {
+        return locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,32 @@
+-- liquibase formatted sql
+
+-- changeset dinar:6
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:2 select count(*) from information_schema.tables where upper(table_name) in ('AVATAR', 'AVATAR_CONTENT') and not exists (select 1 from information_schema.tables where upper(table_name) = 'AVATAR_BLOB')
+create table avatar_blob
+(
+    hash      varchar(64) primary key,
+    size      bigint not null,
+    ref_count bigint not null
+);
+create table avatar_blob_content
+(
+    hash varchar(64) primary key references avatar_blob (hash) on delete cascade,
+    data bytea
+);
+insert into avatar_blob (hash, size, ref_count)
+select content_hash, max(file_size), count(*)
+from avatar
+where content_hash is not null
+group by content_hash;
+insert into avatar_blob_content (hash, data)
+select a.content_hash, c.data
+from avatar a
+         join avatar_content c on c.avatar_id = a.id
+where a.id = (select min(a2.id)
+              from avatar a2
+                       join avatar_content c2 on c2.avatar_id = a2.id
+              where a2.content_hash = a.content_hash);
+delete
+from avatar_content
+where avatar_id in (select id from avatar where content_hash is not null);
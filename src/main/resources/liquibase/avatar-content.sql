@@ -0,0 +1,15 @@
+-- liquibase formatted sql
+
+-- changeset dinar:2
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:1 select count(*) from information_schema.columns where upper(table_name) = 'AVATAR' and upper(column_name) = 'DATA'
+create table avatar_content
+(
+    avatar_id bigint primary key references avatar (id) on delete cascade,
+    data      bytea
+);
+insert into avatar_content (avatar_id, data)
+select id, data
+from avatar
+where data is not null;
+alter table avatar drop column data;
@@ -0,0 +1,16 @@
+-- liquibase formatted sql
+
+-- changeset dinar:8
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:1 select count(*) from information_schema.tables where upper(table_name) = 'STUDENT'
+-- precondition-sql-check expectedResult:0 select count(*) from information_schema.tables where upper(table_name) = 'AVATAR_UPLOAD'
+create table avatar_upload
+(
+    id         varchar(36) primary key,
+    student_id bigint not null references student (id) on delete cascade,
+    media_type varchar(255),
+    size       bigint not null,
+    received   bigint not null,
+    updated_at timestamp
+);
+create index avatar_upload_updated_at_idx on avatar_upload (updated_at);
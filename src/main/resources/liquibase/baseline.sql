@@ -0,0 +1,35 @@
+-- liquibase formatted sql
+
+-- changeset dinar:9
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:0 select count(*) from information_schema.tables where upper(table_name) in ('STUDENT', 'FACULTY')
+create sequence hibernate_sequence start with 1 increment by 1;
+create sequence student_seq start with 1 increment by 50;
+create table faculty
+(
+    id    bigint primary key,
+    name  varchar(255),
+    color varchar(255)
+);
+create table student
+(
+    id         bigint primary key,
+    name       varchar(255),
+    age        integer not null,
+    faculty_id bigint references faculty (id)
+);
+create table avatar
+(
+    id            bigint primary key,
+    file_path     varchar(255),
+    file_size     bigint  not null,
+    media_type    varchar(255),
+    content_hash  varchar(255),
+    last_modified timestamp,
+    student_id    bigint references student (id)
+);
+create table avatar_content
+(
+    avatar_id bigint primary key references avatar (id) on delete cascade,
+    data      bytea
+);
@@ -0,0 +1,16 @@
+-- liquibase formatted sql
+
+-- changeset dinar:7
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:2 select count(*) from information_schema.tables where upper(table_name) in ('STUDENT', 'FACULTY')
+-- precondition-sql-check expectedResult:0 select count(*) from information_schema.tables where upper(table_name) = 'TABLE_VERSION'
+alter table student add column version bigint not null default 0;
+alter table faculty add column version bigint not null default 0;
+create table table_version
+(
+    name    varchar(64) primary key,
+    version bigint not null
+);
+insert into table_version (name, version)
+values ('student', 0),
+       ('faculty', 0);
@@ -0,0 +1,8 @@
+-- liquibase formatted sql
+
+-- changeset dinar:4 dbms:postgresql
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:1 select count(*) from information_schema.tables where upper(table_name) = 'FACULTY'
+create extension if not exists pg_trgm;
+create index ind_faculty_name_trgm on faculty using gin (lower(name) gin_trgm_ops);
+create index ind_faculty_color_trgm on faculty using gin (lower(color) gin_trgm_ops);
@@ -0,0 +1,6 @@
+-- liquibase formatted sql
+
+-- changeset dinar:5
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:1 select count(*) from information_schema.tables where upper(table_name) = 'STUDENT'
+create index ind_student_faculty_id on student (faculty_id);
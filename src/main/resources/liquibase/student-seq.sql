@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset dinar:3 dbms:postgresql
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:1 select count(*) from information_schema.tables where upper(table_name) = 'STUDENT'
+-- precondition-sql-check expectedResult:0 select count(*) from information_schema.sequences where upper(sequence_name) = 'STUDENT_SEQ'
+create sequence student_seq increment by 50;
+select setval('student_seq', coalesce(max(id), 0) + 50, false)
+from student;
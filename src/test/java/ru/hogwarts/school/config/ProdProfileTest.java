@@ -0,0 +1,45 @@
+package ru.hogwarts.school.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.StudentService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The {@code prod} profile on a database Liquibase builds from scratch: Hibernate only validates the schema,
+ * so the context starting at all means {@code changelog-master.yml} creates everything the entities map.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prod",
+        "spring.liquibase.enabled=true"})
+@ActiveProfiles("prod")
+public class ProdProfileTest {
+    @Autowired
+    StudentService studentService;
+    @Autowired
+    ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    void schemaComesFromLiquibase() {
+        StudentDto created = studentService.create(new Student(null, "Prod", 20));
+
+        assertThat(studentService.getById(created.getId()).getName()).isEqualTo("Prod");
+    }
+
+    @Test
+    void springdocAndDataRestAreLazy() {
+        assertThat(beanFactory.containsSingleton("openApiResource")).isFalse();
+        assertThat(beanFactory.containsSingleton("restHandlerMapping")).isFalse();
+        assertThat(beanFactory.containsSingleton("requestMappingHandlerMapping")).isTrue();
+
+        assertThat(beanFactory.getBeansOfType(HandlerMapping.class)).containsKey("restHandlerMapping");
+        assertThat(beanFactory.containsSingleton("restHandlerMapping")).isTrue();
+    }
+}
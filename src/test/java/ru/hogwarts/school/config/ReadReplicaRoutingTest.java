@@ -0,0 +1,43 @@
+package ru.hogwarts.school.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.StudentService;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica; the replica is seeded with a
+ * student the primary does not have, so the rows read tell which database served them.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary",
+        "spring.datasource.replica.url=jdbc:h2:mem:replica;INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql'",
+        "spring.datasource.replica.username=sa",
+        "spring.datasource.replica.password=",
+        "spring.liquibase.enabled=false"})
+public class ReadReplicaRoutingTest {
+    @Autowired
+    StudentService studentService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        StudentDto created = studentService.create(new Student(null, "Primary", 20));
+
+        List<String> read = studentService.getAll().stream().map(StudentDto::getName).collect(Collectors.toList());
+        assertThat(read).containsExactly("Replica");
+
+        List<String> written = jdbcTemplate.queryForList("SELECT name FROM student", String.class);
+        assertThat(written).containsExactly("Primary");
+        assertThat(created.getId()).isNotNull();
+    }
+}
@@ -0,0 +1,143 @@
+package ru.hogwarts.school.controller.mockmvc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.hogwarts.school.controller.AvatarController;
+import ru.hogwarts.school.dto.AvatarCacheStatsDto;
+import ru.hogwarts.school.dto.AvatarDto;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.service.AvatarService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AvatarController.class)
+public class AvatarControllerMvcTest {
+    private static final byte[] DATA = "avatar-bytes".getBytes(StandardCharsets.UTF_8);
+    private static final String HASH = "c0ffee";
+
+    @MockBean
+    AvatarService avatarService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @TempDir
+    Path tempDir;
+
+    private Avatar storedAvatar() throws Exception {
+        Path file = Files.write(tempDir.resolve("1.png"), DATA);
+        Avatar avatar = new Avatar();
+        avatar.setId(1L);
+        avatar.setMediaType("image/png");
+        avatar.setFileSize(DATA.length);
+        avatar.setContentHash(HASH);
+        avatar.setLastModified(Instant.parse("2023-01-01T00:00:00Z"));
+        avatar.setFilePath(file.toString());
+        when(avatarService.getById(1L)).thenReturn(avatar);
+        when(avatarService.getContent(avatar)).thenReturn(new FileSystemResource(file));
+        return avatar;
+    }
+
+    @Test
+    void fromDisk() throws Exception {
+        storedAvatar();
+        mockMvc.perform(MockMvcRequestBuilders.get("/avatar/from-disk/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().exists(HttpHeaders.CACHE_CONTROL))
+                .andExpect(content().bytes(DATA));
+    }
+
+    @Test
+    void fromDiskNotModified() throws Exception {
+        Avatar avatar = storedAvatar();
+        Files.delete(Path.of(avatar.getFilePath()));
+        mockMvc.perform(MockMvcRequestBuilders.get("/avatar/from-disk/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\""))
+                .andExpect(status().isNotModified());
+        verify(avatarService, never()).getContent(any());
+    }
+
+    @Test
+    void fromDiskThumbnail() throws Exception {
+        Avatar avatar = storedAvatar();
+        byte[] thumbnail = "thumb".getBytes(StandardCharsets.UTF_8);
+        when(avatarService.thumbnailSize(100)).thenReturn(128);
+        when(avatarService.getThumbnail(avatar, 128))
+                .thenReturn(new FileSystemResource(Files.write(tempDir.resolve("1-128.png"), thumbnail)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/avatar/from-disk/1?size=100"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "-128\""))
+                .andExpect(content().bytes(thumbnail));
+        verify(avatarService, never()).getContent(any());
+    }
+
+    @Test
+    void fromDiskThumbnailPending() throws Exception {
+        storedAvatar();
+        when(avatarService.thumbnailSize(64)).thenReturn(64);
+        mockMvc.perform(MockMvcRequestBuilders.get("/avatar/from-disk/1?size=64"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+                .andExpect(content().bytes(DATA));
+    }
+
+    @Test
+    void paginate() throws Exception {
+        when(avatarService.findAvatarsPaginated(1)).thenReturn(List.of(new AvatarDto(6L, 16L, "Ivan")));
+        mockMvc.perform(MockMvcRequestBuilders.get("/avatar/paginate?page=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(6))
+                .andExpect(jsonPath("$[0].studentName").value("Ivan"));
+    }
+
+    @Test
+    void paginateAfter() throws Exception {
+        when(avatarService.findAvatarsAfter(5L)).thenReturn(List.of(new AvatarDto(6L, 16L, "Ivan")));
+        mockMvc.perform(MockMvcRequestBuilders.get("/avatar/paginate?after=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(6))
+                .andExpect(jsonPath("$[0].studentId").value(16));
+    }
+
+    @Test
+    void cacheStats() throws Exception {
+        when(avatarService.getCacheStats()).thenReturn(new AvatarCacheStatsDto(3, 1, 0, 2, 2048, 4096));
+        mockMvc.perform(MockMvcRequestBuilders.get("/avatar/cache-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").value(3))
+                .andExpect(jsonPath("$.misses").value(1))
+                .andExpect(jsonPath("$.usedBytes").value(2048));
+    }
+
+    @Test
+    void fromDiskRange() throws Exception {
+        storedAvatar();
+        mockMvc.perform(MockMvcRequestBuilders.get("/avatar/from-disk/1")
+                        .header(HttpHeaders.RANGE, "bytes=0-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-5/" + DATA.length))
+                .andExpect(content().bytes("avatar".getBytes(StandardCharsets.UTF_8)));
+    }
+}
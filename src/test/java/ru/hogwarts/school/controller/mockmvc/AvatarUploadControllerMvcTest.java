@@ -0,0 +1,160 @@
+package ru.hogwarts.school.controller.mockmvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.hogwarts.school.controller.AvatarUploadController;
+import ru.hogwarts.school.dto.AvatarUploadDto;
+import ru.hogwarts.school.model.AvatarUpload;
+import ru.hogwarts.school.reposirory.AvatarUploadRepository;
+import ru.hogwarts.school.reposirory.StudentRepository;
+import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.AvatarUploadService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AvatarUploadController.class)
+@Import(AvatarUploadService.class)
+public class AvatarUploadControllerMvcTest {
+    private static final byte[] DATA = "avatar-bytes".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    static Path avatars;
+
+    @MockBean
+    AvatarUploadRepository uploadRepository;
+    @MockBean
+    StudentRepository studentRepository;
+    @MockBean
+    AvatarService avatarService;
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private final Map<String, AvatarUpload> uploads = new HashMap<>();
+
+    @DynamicPropertySource
+    static void avatarsFolder(DynamicPropertyRegistry registry) {
+        registry.add("path.to.avatars.folder", avatars::toString);
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(studentRepository.existsById(1L)).thenReturn(true);
+        when(uploadRepository.save(any())).thenAnswer(invocation -> {
+            AvatarUpload upload = invocation.getArgument(0);
+            uploads.put(upload.getId(), upload);
+            return upload;
+        });
+        when(uploadRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(uploads.get(invocation.<String>getArgument(0))));
+        when(uploadRepository.findForUpdate(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(uploads.get(invocation.<String>getArgument(0))));
+    }
+
+    private String create() throws Exception {
+        String body = mockMvc.perform(MockMvcRequestBuilders.post("/avatar/uploads")
+                        .param("studentId", "1")
+                        .param("size", String.valueOf(DATA.length))
+                        .param("mediaType", "image/png"))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andExpect(jsonPath("$.offset").value(0))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, AvatarUploadDto.class).getId();
+    }
+
+    private void put(String id, int first, int last) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/avatar/uploads/" + id)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + DATA.length)
+                        .content(Arrays.copyOfRange(DATA, first, last + 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(last + 1));
+    }
+
+    @Test
+    void resumedUploadCompletes() throws Exception {
+        String id = create();
+        put(id, 0, 4);
+        mockMvc.perform(MockMvcRequestBuilders.put("/avatar/uploads/" + id)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes 8-11/" + DATA.length)
+                        .content(Arrays.copyOfRange(DATA, 8, 12)))
+                .andExpect(status().isConflict());
+        mockMvc.perform(MockMvcRequestBuilders.post("/avatar/uploads/" + id + "/complete"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(MockMvcRequestBuilders.get("/avatar/uploads/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(5));
+        put(id, 3, 11);
+
+        when(avatarService.save(eq(1L), any(Path.class), eq("image/png"))).thenAnswer(invocation -> {
+            assertThat(Files.readAllBytes(invocation.<Path>getArgument(1))).isEqualTo(DATA);
+            return 7L;
+        });
+        mockMvc.perform(MockMvcRequestBuilders.post("/avatar/uploads/" + id + "/complete"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(7));
+        verify(uploadRepository).delete(uploads.get(id));
+        assertThat(avatars.resolve("uploads").resolve(id + ".part")).doesNotExist();
+    }
+
+    @Test
+    void invalidRanges() throws Exception {
+        String id = create();
+        mockMvc.perform(MockMvcRequestBuilders.put("/avatar/uploads/" + id)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes=0-4")
+                        .content(DATA))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.put("/avatar/uploads/" + id)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes 0-4/100")
+                        .content(DATA))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.put("/avatar/uploads/" + id)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes 0-" + DATA.length + "/*")
+                        .content(DATA))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.put("/avatar/uploads/unknown")
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes 0-4/*")
+                        .content(DATA))
+                .andExpect(status().isNotFound());
+        verify(uploadRepository, never()).advance(anyString(), any(Long.class), any());
+    }
+
+    @Test
+    void tooLarge() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/avatar/uploads")
+                        .param("studentId", "1")
+                        .param("size", String.valueOf(1L << 40))
+                        .param("mediaType", "image/png"))
+                .andExpect(status().isBadRequest());
+    }
+}
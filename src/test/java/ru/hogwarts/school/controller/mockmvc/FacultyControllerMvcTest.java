@@ -7,24 +7,36 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.hogwarts.school.cache.FacultyCache;
 import ru.hogwarts.school.controller.FacultyController;
+import ru.hogwarts.school.dto.CursorPage;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.reposirory.AvatarRepository;
 import ru.hogwarts.school.reposirory.FacultyRepository;
+import ru.hogwarts.school.reposirory.MultiIdLoader;
 import ru.hogwarts.school.reposirory.StudentRepository;
+import ru.hogwarts.school.search.FacultySearch;
 import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.ExportService;
 import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.TableVersions;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -40,6 +52,16 @@ public class FacultyControllerMvcTest {
     AvatarRepository avatarRepository;
     @MockBean
     AvatarService avatarService;
+    @MockBean
+    ExportService exportService;
+    @MockBean
+    FacultyCache facultyCache;
+    @MockBean
+    FacultySearch facultySearch;
+    @MockBean
+    TableVersions tableVersions;
+    @MockBean
+    MultiIdLoader multiIdLoader;
 
     @Autowired
     MockMvc mockMvc;
@@ -123,6 +145,67 @@ public class FacultyControllerMvcTest {
 
     }
 
+    @Test
+    void getByIdNotModified() throws Exception {
+        Faculty faculty = new Faculty(1L, "Mat-Mat", "red");
+        faculty.setVersion(3);
+        when(facultyRepository.findById(1L)).thenReturn(Optional.of(faculty));
+        mockMvc.perform(MockMvcRequestBuilders.get("/faculty/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"3\""));
+        mockMvc.perform(MockMvcRequestBuilders.get("/faculty/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"3\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getAllNotModified() throws Exception {
+        when(tableVersions.eTag(TableVersions.FACULTY)).thenReturn("7");
+        mockMvc.perform(MockMvcRequestBuilders.get("/faculty")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"7\""));
+        verify(facultyRepository, never()).findAll();
+
+        when(tableVersions.eTag(TableVersions.FACULTY)).thenReturn("8");
+        mockMvc.perform(MockMvcRequestBuilders.get("/faculty")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"8\""));
+    }
+
+    @Test
+    void getByIds() throws Exception {
+        when(multiIdLoader.load(Faculty.class, List.of(2L, 7L, 1L))).thenReturn(Arrays.asList(
+                new Faculty(2L, "Fis-Fis", "blue"),
+                null,
+                new Faculty(1L, "Mat-Mat", "red")
+        ));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/faculty?ids=2,7,1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id").value(2L))
+                .andExpect(jsonPath("$.items[1].id").value(1L))
+                .andExpect(jsonPath("$.missing", hasSize(1)))
+                .andExpect(jsonPath("$.missing[0]").value(7L));
+    }
+
+    @Test
+    void getAllPage() throws Exception {
+        when(facultyRepository.findAllByIdGreaterThanOrderById(ArgumentMatchers.eq(0L), ArgumentMatchers.any())).thenReturn(Arrays.asList(
+                new Faculty(1l, "Mat-Mat", "red"),
+                new Faculty(2l, "Fis-Fis", "blue")
+        ));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/faculty?limit=1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(header().string("X-Next-Cursor", CursorPage.encode(1L)));
+    }
+
     @Test
     void filteredByColor() throws Exception {
         when(facultyRepository.findAllByColor("black")).thenReturn(Arrays.asList(
@@ -142,17 +225,16 @@ public class FacultyControllerMvcTest {
 
     @Test
     void filteredByColorOrName() throws Exception {
-        when(facultyRepository.findAllByColorLikeIgnoreCaseOrNameLikeIgnoreCase("blue", "Mat")).thenReturn(Arrays.asList(
+        when(facultySearch.search("bl")).thenReturn(Arrays.asList(
                 new Faculty(1l, "Mat", "black"),
-                new Faculty(2l, "Fis", "red"),
-                new Faculty(3l, "Rus", "black"),
                 new Faculty(4l, "Alg", "blue")
         ));
-        mockMvc.perform(MockMvcRequestBuilders.get("/faculty/by-color-or-name?colorOrName=blue&colorOrName=Fis")
+        mockMvc.perform(MockMvcRequestBuilders.get("/faculty/by-color-or-name?colorOrName=bl")
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect((ResultMatcher) jsonPath("$").isArray());
+                .andExpect((ResultMatcher) jsonPath("$").isArray())
+                .andExpect((ResultMatcher) jsonPath("$[1].color").value("blue"));
 
 
     }
@@ -161,8 +243,7 @@ public class FacultyControllerMvcTest {
     void getByStudent() throws Exception {
         Faculty faculty = new Faculty(1L, "fiz", "blue");
         Student student = new Student(1L, "Olga", 22);
-        student.setFaculty(faculty);
-        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+        when(studentRepository.findFacultyByStudentId(1L)).thenReturn(Optional.of(faculty));
         mockMvc.perform(MockMvcRequestBuilders
                         .get("/faculty/by-student/?studentId=" + student.getId())
                         .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,149 @@
+package ru.hogwarts.school.controller.mockmvc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.hogwarts.school.controller.AvatarController;
+import ru.hogwarts.school.controller.StudentController;
+import ru.hogwarts.school.dto.CursorPage;
+import ru.hogwarts.school.dto.FacultyDto;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.dto.AvatarDto;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.ExportService;
+import ru.hogwarts.school.service.StudentImportService;
+import ru.hogwarts.school.service.StudentService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest({AvatarController.class, StudentController.class})
+@TestPropertySource(properties = {"request.execution.mode=async", "avatar.io.threads=1", "avatar.io.queue-capacity=1"})
+public class RequestExecutionMvcTest {
+    private static final byte[] DATA = "avatar-bytes".getBytes(StandardCharsets.UTF_8);
+    private static final String HASH = "c0ffee";
+
+    @MockBean
+    AvatarService avatarService;
+    @MockBean
+    StudentService studentService;
+    @MockBean
+    ExportService exportService;
+    @MockBean
+    StudentImportService importService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    private Avatar storedAvatar() throws Exception {
+        Avatar avatar = new Avatar();
+        avatar.setId(1L);
+        avatar.setMediaType("image/png");
+        avatar.setFileSize(DATA.length);
+        avatar.setContentHash(HASH);
+        avatar.setLastModified(Instant.parse("2023-01-01T00:00:00Z"));
+        when(avatarService.getById(1L)).thenReturn(avatar);
+        when(avatarService.getContent(avatar)).thenReturn(new ByteArrayResource(DATA));
+        return avatar;
+    }
+
+    @Test
+    void metadataRunsAsync() throws Exception {
+        when(avatarService.findAvatarsPaginated(0)).thenReturn(List.of(new AvatarDto(1L, 2L, "Ivan")));
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/avatar/paginate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
+
+    @Test
+    void pageLinksRunAsync() throws Exception {
+        FacultyDto faculty = new FacultyDto(2L, "FIZ", "BLUE", 1);
+        List<StudentDto> rows = List.of(new StudentDto(1L, "Ivan", 20, 0, faculty), new StudentDto(2L, "Olga", 21, 0, faculty));
+        when(studentService.getPage(null, 1)).thenReturn(CursorPage.of(rows, 1, StudentDto::getId));
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/student").param("limit", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String next = CursorPage.of(rows, 1, StudentDto::getId).getNext();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string("X-Next-Cursor", next))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("cursor=" + next)));
+    }
+
+    @Test
+    void avatarRunsAsync() throws Exception {
+        storedAvatar();
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/avatar/from-disk/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(DATA));
+    }
+
+    @Test
+    void notModifiedRunsAsync() throws Exception {
+        storedAvatar();
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/avatar/from-disk/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified());
+        verify(avatarService, never()).getContent(any());
+    }
+
+    @Test
+    void avatarBulkheadFull() throws Exception {
+        Avatar avatar = storedAvatar();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(avatarService.getById(1L)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return avatar;
+        });
+        try {
+            MvcResult running = mockMvc.perform(MockMvcRequestBuilders.get("/avatar/from-disk/1")).andReturn();
+            started.await(10, TimeUnit.SECONDS);
+            MvcResult queued = mockMvc.perform(MockMvcRequestBuilders.get("/avatar/from-disk/1")).andReturn();
+            mockMvc.perform(MockMvcRequestBuilders.get("/avatar/from-disk/1"))
+                    .andExpect(status().isServiceUnavailable());
+            when(avatarService.findAvatarsPaginated(0)).thenReturn(List.of());
+            MvcResult metadata = mockMvc.perform(MockMvcRequestBuilders.get("/avatar/paginate")).andReturn();
+            mockMvc.perform(asyncDispatch(metadata)).andExpect(status().isOk());
+            release.countDown();
+            mockMvc.perform(asyncDispatch(running)).andExpect(status().isOk());
+            mockMvc.perform(asyncDispatch(queued)).andExpect(status().isOk());
+        } finally {
+            release.countDown();
+        }
+    }
+}
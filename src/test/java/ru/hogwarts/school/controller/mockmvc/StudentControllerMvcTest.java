@@ -7,31 +7,49 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import ru.hogwarts.school.controller.StudentController;
+import ru.hogwarts.school.dto.BulkImportErrorDto;
+import ru.hogwarts.school.dto.BulkImportResultDto;
+import ru.hogwarts.school.dto.CursorPage;
+import ru.hogwarts.school.dto.FacultyDto;
+import ru.hogwarts.school.dto.FacultyStatsDto;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.dto.StudentNameDto;
+import ru.hogwarts.school.dto.StudentStatsDto;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.reposirory.AvatarRepository;
 import ru.hogwarts.school.reposirory.FacultyRepository;
+import ru.hogwarts.school.reposirory.MultiIdLoader;
 import ru.hogwarts.school.reposirory.StudentRepository;
+import ru.hogwarts.school.search.StudentNameIndex;
 import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.ExportService;
+import ru.hogwarts.school.service.StudentImportService;
 import ru.hogwarts.school.service.StudentService;
+import ru.hogwarts.school.service.StudentStatisticsService;
+import ru.hogwarts.school.service.TableVersions;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -42,11 +60,23 @@ public class StudentControllerMvcTest {
     @MockBean
     AvatarService avatarService;
     @MockBean
+    ExportService exportService;
+    @MockBean
+    StudentStatisticsService statisticsService;
+    @MockBean
+    StudentImportService importService;
+    @MockBean
+    StudentNameIndex nameIndex;
+    @MockBean
     StudentRepository studentRepository;
     @MockBean
     FacultyRepository facultyRepository;
     @MockBean
     AvatarRepository avatarRepository;
+    @MockBean
+    TableVersions tableVersions;
+    @MockBean
+    MultiIdLoader multiIdLoader;
 
     @Autowired
     MockMvc mockMvc;
@@ -55,15 +85,16 @@ public class StudentControllerMvcTest {
 
     @Test
     void getById() throws Exception {
-        Student student = new Student(1L, "Ivan", 20);
-        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+        StudentDto student = new StudentDto(1L, "Ivan", 20, new FacultyDto(2L, "FIZ", "BLUE"));
+        when(studentRepository.findDtoById(1L)).thenReturn(Optional.of(student));
         mockMvc.perform(MockMvcRequestBuilders.get("/student/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect((ResultMatcher) jsonPath("$.id").value("1"))
                 .andExpect((ResultMatcher) jsonPath("$.name").value("Ivan"))
-                .andExpect((ResultMatcher) jsonPath("$.age").value("20"));
+                .andExpect((ResultMatcher) jsonPath("$.age").value("20"))
+                .andExpect(jsonPath("$.faculty.name").value("FIZ"));
 
 
     }
@@ -116,8 +147,8 @@ public class StudentControllerMvcTest {
     @Test
     void filteredBetween() throws Exception {
         when(studentRepository.findAllByAgeBetween(0, 20)).thenReturn(Arrays.asList(
-                new Student(1l, "Ivan", 20),
-                new Student(2l, "Varina", 21)
+                new StudentDto(1l, "Ivan", 20, null),
+                new StudentDto(2l, "Varina", 21, null)
         ));
         mockMvc.perform(MockMvcRequestBuilders.get("/student/age-between?min=0&max=20")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -132,9 +163,9 @@ public class StudentControllerMvcTest {
 
     @Test
     void getAll() throws Exception {
-        when(studentRepository.findAll()).thenReturn(Arrays.asList(
-                new Student(1l, "Ivan", 20),
-                new Student(2l, "Varina", 21)
+        when(studentRepository.findAllDtos()).thenReturn(Arrays.asList(
+                new StudentDto(1l, "Ivan", 20, null),
+                new StudentDto(2l, "Varina", 21, null)
         ));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/student")
@@ -147,13 +178,47 @@ public class StudentControllerMvcTest {
 
     }
 
+    @Test
+    void getAllPage() throws Exception {
+        when(studentRepository.findAllByIdGreaterThanOrderById(ArgumentMatchers.eq(0L), any())).thenReturn(Arrays.asList(
+                new StudentDto(1l, "Ivan", 20, null),
+                new StudentDto(2l, "Varina", 21, null),
+                new StudentDto(3l, "Marina", 22, null)
+        ));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student?limit=2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].id").value(2L))
+                .andExpect(header().string("X-Next-Cursor", CursorPage.encode(2L)));
+
+        when(studentRepository.findAllByIdGreaterThanOrderById(ArgumentMatchers.eq(2L), any())).thenReturn(Arrays.asList(
+                new StudentDto(3l, "Marina", 22, null)
+        ));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student?limit=2&cursor=" + CursorPage.encode(2L))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(3L))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void getAllInvalidCursor() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/student?cursor=***")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void filteredByAge() throws Exception {
         when(studentRepository.findAllByAge(22)).thenReturn(Arrays.asList(
-                new Student(1l, "Ivan", 22),
-                new Student(2l, "Varina", 21),
-                new Student(3l, "Marina", 22),
-                new Student(4l, "Slava", 21)
+                new StudentDto(1l, "Ivan", 22, null),
+                new StudentDto(2l, "Varina", 21, null),
+                new StudentDto(3l, "Marina", 22, null),
+                new StudentDto(4l, "Slava", 21, null)
         ));
         mockMvc.perform(MockMvcRequestBuilders.get("/student/filtered?age=22")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -166,13 +231,12 @@ public class StudentControllerMvcTest {
 
     @Test
     void getByFaculty() throws Exception {
-        List<Student> facultyStudents = Arrays.asList(
-                new Student(1l, "Olga", 22),
-                new Student(2l, "Vova", 23)
+        List<StudentDto> facultyStudents = Arrays.asList(
+                new StudentDto(1l, "Olga", 22, null),
+                new StudentDto(2l, "Vova", 23, null)
         );
         Faculty faculty = new Faculty(1L, "FIZ", "BLUE");
-        faculty.setStudents(facultyStudents);
-        when(facultyRepository.findById(1L)).thenReturn(Optional.of(faculty));
+        when(studentRepository.findAllByFacultyId(1L)).thenReturn(facultyStudents);
         mockMvc.perform(MockMvcRequestBuilders
                         .get("/student/by-faculty?facultyId=" + faculty.getId())
                         .contentType(MediaType.APPLICATION_JSON)
@@ -183,6 +247,16 @@ public class StudentControllerMvcTest {
 
     }
 
+    @Test
+    void getByMissingFaculty() throws Exception {
+        when(studentRepository.findAllByFacultyId(9L)).thenReturn(List.of());
+        when(facultyRepository.existsById(9L)).thenReturn(false);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/student/by-faculty?facultyId=9")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getCountOfStudentsTest() throws Exception {
         List<Student> students = Arrays.asList(
@@ -222,24 +296,71 @@ public class StudentControllerMvcTest {
                 .andExpect(jsonPath("$").value(averageAge));
     }
 
+    @Test
+    void bulkJsonTest() throws Exception {
+        when(importService.importJson(any())).thenReturn(new BulkImportResultDto(1, 1,
+                List.of(new BulkImportErrorDto(2, "Ivan", "name_unique", "duplicate key"))));
+        mockMvc.perform(post("/student/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"Ivan\",\"age\":20},{\"name\":\"Ivan\",\"age\":21}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].error").value("name_unique"));
+    }
+
+    @Test
+    void bulkCsvTest() throws Exception {
+        when(importService.importCsv(any())).thenReturn(new BulkImportResultDto(2, 0, List.of()));
+        mockMvc.perform(post("/student/bulk")
+                        .contentType("text/csv")
+                        .content("name,age\nIvan,20\nPetr,21\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.errors", hasSize(0)));
+    }
+
+    @Test
+    void searchByPrefixTest() throws Exception {
+        when(nameIndex.findByPrefix("iv", 2)).thenReturn(List.of(new StudentNameDto(1L, "Ivan"), new StudentNameDto(7L, "Ivanna")));
+        mockMvc.perform(get("/student/search?prefix=iv&limit=2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name").value("Ivan"))
+                .andExpect(jsonPath("$[1].id").value(7));
+    }
+
+    @Test
+    void getStatsTest() throws Exception {
+        when(statisticsService.getStats()).thenReturn(new StudentStatsDto(3, 21.0,
+                List.of(new FacultyStatsDto(1L, 2, 20.5), new FacultyStatsDto(null, 1, 22.0))));
+        mockMvc.perform(get("/student/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.averageAge").value(21.0))
+                .andExpect(jsonPath("$.byFaculty", hasSize(2)))
+                .andExpect(jsonPath("$.byFaculty[0].facultyId").value(1))
+                .andExpect(jsonPath("$.byFaculty[0].averageAge").value(20.5));
+    }
+
     @Test
     void findLastFiveStudentsTest() throws Exception {
-        List<Student> students = Arrays.asList(
-                new Student(1L, "Alice", 22),
-                new Student(2L, "Bob", 24),
-                new Student(3L, "Charlie", 20),
-                new Student(4L, "David", 21),
-                new Student(5L, "Eve", 23),
-                new Student(6L, "Frank", 25),
-                new Student(7L, "Grace", 19),
-                new Student(8L, "Helen", 27),
-                new Student(9L, "Ivan", 26),
-                new Student(10L, "John", 18)
+        List<StudentDto> students = Arrays.asList(
+                new StudentDto(1L, "Alice", 22, null),
+                new StudentDto(2L, "Bob", 24, null),
+                new StudentDto(3L, "Charlie", 20, null),
+                new StudentDto(4L, "David", 21, null),
+                new StudentDto(5L, "Eve", 23, null),
+                new StudentDto(6L, "Frank", 25, null),
+                new StudentDto(7L, "Grace", 19, null),
+                new StudentDto(8L, "Helen", 27, null),
+                new StudentDto(9L, "Ivan", 26, null),
+                new StudentDto(10L, "John", 18, null)
         );
-        PageRequest pageable = PageRequest.of(0, 5);
-        Page<Student> studentPage = new PageImpl<>(students.subList(5, 10), pageable, (long) students.size());
-
-        when(studentRepository.findLastFiveStudents(any())).thenReturn(studentPage);
+        when(studentRepository.findLastStudents(PageRequest.of(0, 5))).thenReturn(students.subList(5, 10));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/student/last-five")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -254,6 +375,49 @@ public class StudentControllerMvcTest {
                 .andExpect(jsonPath("$[4].id").value(10));
     }
 
+    @Test
+    void getByIds() throws Exception {
+        Student student = new Student(3L, "Ivan", 20);
+        student.setFaculty(new Faculty(2L, "FIZ", "BLUE"));
+        when(multiIdLoader.load(Student.class, List.of(3L, 4L))).thenReturn(Arrays.asList(student, null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/student").param("ids", "3", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id").value(3))
+                .andExpect(jsonPath("$.items[0].faculty.name").value("FIZ"))
+                .andExpect(jsonPath("$.missing[0]").value(4));
+    }
+
+    @Test
+    void tooManyIds() throws Exception {
+        String ids = LongStream.rangeClosed(1, 1001).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        mockMvc.perform(MockMvcRequestBuilders.get("/student").param("ids", ids))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void lastFiveNotModified() throws Exception {
+        when(tableVersions.eTag(TableVersions.STUDENT, TableVersions.FACULTY)).thenReturn("12-3");
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/last-five")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"12-3\""))
+                .andExpect(status().isNotModified());
+        verify(studentRepository, never()).findLastStudents(any());
+    }
+
+    @Test
+    void getByIdNotModified() throws Exception {
+        StudentDto student = new StudentDto(1L, "Ivan", 20, 4, new FacultyDto(2L, "FIZ", "BLUE", 1));
+        when(studentRepository.findDtoById(1L)).thenReturn(Optional.of(student));
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"4-2-1\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+        mockMvc.perform(MockMvcRequestBuilders.get("/student/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"4-2-1\""))
+                .andExpect(status().isNotModified());
+    }
+
 }
 
 
@@ -0,0 +1,83 @@
+package ru.hogwarts.school.controller.testresttemplate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.hogwarts.school.HogwartsApplication;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.reposirory.FacultyRepository;
+import ru.hogwarts.school.reposirory.StudentRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JSON reads are gzipped once they pass {@code server.compression.min-response-size}, including reads that
+ * carry an {@code ETag}; Tomcat skips compression for strong ones, so those have to stay weak.
+ */
+@SpringBootTest(classes = HogwartsApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:compression", "spring.liquibase.enabled=false"})
+public class ResponseCompressionTest {
+    private static final int ROWS = 20;
+
+    @Autowired
+    TestRestTemplate template;
+    @Autowired
+    StudentRepository studentRepository;
+    @Autowired
+    FacultyRepository facultyRepository;
+
+    @BeforeEach
+    void init() {
+        studentRepository.deleteAll();
+        facultyRepository.deleteAll();
+        for (int i = 0; i < ROWS; i++) {
+            template.postForEntity("/student", new Student(null, "Student " + i, 17 + i % 5), Student.class);
+            template.postForEntity("/faculty", new Faculty(null, "Faculty " + i, "color " + i), Faculty.class);
+        }
+    }
+
+    @Test
+    void studentListIsCompressed() throws IOException {
+        ResponseEntity<byte[]> response = getGzipped("/student");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip(response.getBody())).startsWith("[").contains("\"Student 19\"");
+    }
+
+    @Test
+    void facultyListWithETagIsCompressed() throws IOException {
+        ResponseEntity<byte[]> response = getGzipped("/faculty");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).startsWith("W/\"");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip(response.getBody())).startsWith("[").contains("\"Faculty 19\"");
+    }
+
+    private ResponseEntity<byte[]> getGzipped(String path) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return template.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.hogwarts.school.search;
+
+import org.junit.jupiter.api.Test;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.reposirory.FacultyRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MemoryFacultySearchTest {
+    private final FacultyRepository facultyRepository = mock(FacultyRepository.class);
+    private final MemoryFacultySearch search = new MemoryFacultySearch(facultyRepository);
+
+    @Test
+    void rebuildReplacesTheIndex() {
+        when(facultyRepository.findAll()).thenReturn(List.of(new Faculty(1L, "Gryffindor", "red"),
+                new Faculty(2L, "Slytherin", "green")));
+        search.rebuild();
+        search.saved(new Faculty(3L, "Ravenclaw", "blue"));
+        assertThat(search.search("r")).extracting(Faculty::getName).containsExactly("Gryffindor", "Slytherin", "Ravenclaw");
+
+        when(facultyRepository.findAll()).thenReturn(List.of(new Faculty(2L, "Slytherin", "silver")));
+        search.rebuild();
+
+        assertThat(search.search("r")).extracting(Faculty::getName).containsExactly("Slytherin");
+        assertThat(search.search("green")).isEmpty();
+        assertThat(search.search("SILV")).extracting(Faculty::getName).containsExactly("Slytherin");
+    }
+}
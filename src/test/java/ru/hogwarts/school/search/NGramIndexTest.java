@@ -0,0 +1,73 @@
+package ru.hogwarts.school.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NGramIndexTest {
+    private final NGramIndex<String> index = new NGramIndex<>();
+
+    @BeforeEach
+    void setUp() {
+        index.put(1L, "gryffindor", "Gryffindor", "red");
+        index.put(2L, "hufflepuff", "Hufflepuff", "yellow");
+        index.put(3L, "ravenclaw", "Ravenclaw", "blue");
+        index.put(4L, "slytherin", "Slytherin", "green");
+    }
+
+    @Test
+    void substringMatchesAnyText() {
+        assertThat(index.search("ffin")).containsExactly("gryffindor");
+        assertThat(index.search("ee")).containsExactly("slytherin");
+        assertThat(index.search("llo")).containsExactly("hufflepuff");
+        assertThat(index.search("ffx")).isEmpty();
+    }
+
+    @Test
+    void shortQueriesScanAllEntries() {
+        assertThat(index.search("ff")).containsExactly("gryffindor", "hufflepuff");
+        assertThat(index.search("e")).containsExactly("gryffindor", "hufflepuff", "ravenclaw", "slytherin");
+        assertThat(index.search("q")).isEmpty();
+        assertThat(index.search("")).hasSize(4);
+    }
+
+    @Test
+    void ignoresCase() {
+        assertThat(index.search("RAVEN")).containsExactly("ravenclaw");
+        assertThat(index.search("Ue")).containsExactly("ravenclaw");
+        assertThat(index.search("gReEn")).containsExactly("slytherin");
+    }
+
+    @Test
+    void removeAndPutAgain() {
+        index.remove(1L);
+        assertThat(index.search("ffin")).isEmpty();
+        assertThat(index.search("ff")).containsExactly("hufflepuff");
+
+        index.put(1L, "gryffindor", "Gryffindor", "scarlet");
+        index.put(4L, "slytherin", "Slytherin", "silver");
+        assertThat(index.search("scar")).containsExactly("gryffindor");
+        assertThat(index.search("red")).isEmpty();
+        assertThat(index.search("green")).isEmpty();
+        assertThat(index.search("silver")).containsExactly("slytherin");
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void limitKeepsIdOrder() {
+        assertThat(index.search("e", 2)).containsExactly("gryffindor", "hufflepuff");
+        assertThat(index.search("in", 1)).containsExactly("gryffindor");
+    }
+
+    @Test
+    void replaceAllDropsOldEntries() {
+        index.replaceAll(Map.of(5L, "durmstrang"), value -> new String[]{value});
+
+        assertThat(index.search("gryff")).isEmpty();
+        assertThat(index.search("STRANG")).containsExactly("durmstrang");
+        assertThat(index.size()).isEqualTo(1);
+    }
+}
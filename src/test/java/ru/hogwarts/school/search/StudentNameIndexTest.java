@@ -0,0 +1,73 @@
+package ru.hogwarts.school.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.hogwarts.school.dto.StudentNameDto;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.reposirory.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Changes made outside a transaction apply right away, so the index is driven directly here.
+ */
+public class StudentNameIndexTest {
+    private final StudentRepository studentRepository = mock(StudentRepository.class);
+    private final StudentNameIndex index = new StudentNameIndex(studentRepository);
+    private final List<StudentNameDto> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        rows.add(new StudentNameDto(1L, "Harry"));
+        rows.add(new StudentNameDto(2L, "hermione"));
+        rows.add(new StudentNameDto(3L, "Hannah"));
+        rows.add(new StudentNameDto(4L, "Ron"));
+        when(studentRepository.streamNames()).thenAnswer(invocation -> new ArrayList<>(rows).stream());
+        index.rebuild();
+    }
+
+    @Test
+    void prefixIgnoresCaseInNameOrder() {
+        assertThat(names("h", 10)).containsExactly("Hannah", "Harry", "hermione");
+        assertThat(names("HAR", 10)).containsExactly("Harry");
+        assertThat(names("x", 10)).isEmpty();
+    }
+
+    @Test
+    void limit() {
+        assertThat(names("h", 2)).containsExactly("Hannah", "Harry");
+        assertThat(names("", 1)).containsExactly("Hannah");
+    }
+
+    @Test
+    void removeAndPutAgain() {
+        index.removed(1L);
+        assertThat(names("har", 10)).isEmpty();
+
+        index.saved(new Student(1L, "Harold", 17));
+        index.saved(new Student(4L, "Ronald", 17));
+        assertThat(names("har", 10)).containsExactly("Harold");
+        assertThat(names("ron", 10)).containsExactly("Ronald");
+    }
+
+    @Test
+    void rebuildPicksUpWritesThatBypassedTheIndex() {
+        rows.remove(0);
+        rows.add(new StudentNameDto(5L, "Hagrid"));
+
+        index.rebuild();
+
+        assertThat(names("h", 10)).containsExactly("Hagrid", "Hannah", "hermione");
+    }
+
+    private List<String> names(String prefix, int limit) {
+        List<String> names = new ArrayList<>();
+        index.findByPrefix(prefix, limit).forEach(dto -> names.add(dto.getName()));
+        return names;
+    }
+}
@@ -0,0 +1,162 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.storage.FileSystemAvatarStorage;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reference counting against its own H2 database and avatars folder, with the filesystem storage.
+ * Each test stores an image of its own color, so their hashes and files do not collide.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:blobs",
+        "spring.liquibase.enabled=false",
+        "path.to.avatars.folder=target/test-avatars/blobs",
+        "avatar.storage.mode=filesystem"})
+public class AvatarBlobStoreTest {
+    private static final Path UPLOADS = Path.of("target/test-avatars/blobs");
+
+    @Autowired
+    AvatarBlobStore blobStore;
+    @Autowired
+    FileSystemAvatarStorage fileSystemStorage;
+    @Autowired
+    AvatarThumbnailService thumbnailService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void sameImageTwiceIsStoredOnce() throws IOException {
+        byte[] image = png(Color.RED);
+        String hash = sha256(image);
+
+        store(image, hash);
+        store(image, hash);
+
+        assertThat(refCount(hash)).containsExactly(2L);
+        assertThat(fileSystemStorage.keys()).containsOnlyOnce(hash);
+        assertThat(Files.readAllBytes(fileSystemStorage.pathOf(hash))).isEqualTo(image);
+    }
+
+    @Test
+    void releasingEveryReferenceDeletesRowFileAndThumbnails() throws Exception {
+        byte[] image = png(Color.GREEN);
+        String hash = sha256(image);
+        store(image, hash);
+        store(image, hash);
+        awaitThumbnails(hash);
+
+        inTransaction(() -> blobStore.release(List.of(hash)));
+
+        assertThat(refCount(hash)).containsExactly(1L);
+        assertThat(fileSystemStorage.contains(hash)).isTrue();
+
+        inTransaction(() -> blobStore.release(List.of(hash)));
+
+        assertThat(refCount(hash)).isEmpty();
+        assertThat(fileSystemStorage.contains(hash)).isFalse();
+        assertThat(thumbnailService.find(hash, thumbnailService.sizeFor(0))).isNull();
+        assertThat(thumbnailService.find(hash, thumbnailService.sizeFor(Integer.MAX_VALUE))).isNull();
+    }
+
+    @Test
+    void rolledBackUploadLeavesNoFile() throws IOException {
+        byte[] image = png(Color.BLUE);
+        String hash = sha256(image);
+        Path upload = upload(image);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            store(upload, hash, image.length);
+            assertThat(fileSystemStorage.contains(hash)).isTrue();
+            status.setRollbackOnly();
+        });
+
+        assertThat(refCount(hash)).isEmpty();
+        assertThat(fileSystemStorage.contains(hash)).isFalse();
+        assertThat(fileSystemStorage.keys()).doesNotContain(hash);
+    }
+
+    private void store(byte[] image, String hash) throws IOException {
+        Path upload = upload(image);
+        inTransaction(() -> store(upload, hash, image.length));
+        Files.deleteIfExists(upload);
+    }
+
+    private void store(Path upload, String hash, long size) {
+        try {
+            blobStore.store(upload, hash, size, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+
+    private List<Long> refCount(String hash) {
+        return jdbcTemplate.queryForList("SELECT ref_count FROM avatar_blob WHERE hash = ?", Long.class, hash);
+    }
+
+    /**
+     * Thumbnails are written on a background pool, largest size last; waiting for it keeps generation
+     * from racing the deletion under test.
+     */
+    private void awaitThumbnails(String hash) throws InterruptedException {
+        int largest = thumbnailService.sizeFor(Integer.MAX_VALUE);
+        for (int i = 0; i < 100 && thumbnailService.find(hash, largest) == null; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(thumbnailService.find(hash, largest)).isNotNull();
+    }
+
+    private static Path upload(byte[] image) throws IOException {
+        Files.createDirectories(UPLOADS);
+        Path upload = Files.createTempFile(UPLOADS, "test-", ".upload");
+        return Files.write(upload, image);
+    }
+
+    private static byte[] png(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(data)) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.hogwarts.school.storage.AvatarStorage;
+import ru.hogwarts.school.storage.DatabaseAvatarStorage;
+import ru.hogwarts.school.storage.FileSystemAvatarStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs with {@code avatar.storage.mode=database} over images left on disk, as after switching from the
+ * {@code filesystem} mode. Hashes only need to be 64 hex digits here; nothing checks them against the bytes.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrate",
+        "spring.liquibase.enabled=false",
+        "path.to.avatars.folder=target/test-avatars/migrate",
+        "avatar.storage.mode=database"})
+public class AvatarStorageMigratorTest {
+    private static final Path UPLOADS = Path.of("target/test-avatars/migrate");
+
+    @Autowired
+    AvatarStorageMigrator migrator;
+    @Autowired
+    AvatarBlobStore blobStore;
+    @Autowired
+    AvatarStorage storage;
+    @Autowired
+    FileSystemAvatarStorage fileSystemStorage;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migratorMovesImagesIntoTheConfiguredMode() throws IOException {
+        String first = leftOnDisk('1', "first image");
+        String second = leftOnDisk('2', "second image");
+
+        migrator.migrate();
+
+        assertThat(storage).isInstanceOf(DatabaseAvatarStorage.class);
+        assertThat(content(first)).isEqualTo("first image");
+        assertThat(content(second)).isEqualTo("second image");
+        assertThat(fileSystemStorage.contains(first)).isFalse();
+        assertThat(fileSystemStorage.contains(second)).isFalse();
+    }
+
+    @Test
+    void readMovesAnImageNotMigratedYet() throws IOException {
+        String hash = leftOnDisk('3', "read image");
+
+        assertThat(storage.get(hash)).isNull();
+        assertThat(blobStore.migrate(hash)).isTrue();
+        assertThat(blobStore.migrate(hash)).isFalse();
+
+        assertThat(content(hash)).isEqualTo("read image");
+        assertThat(fileSystemStorage.contains(hash)).isFalse();
+    }
+
+    private String leftOnDisk(char digit, String content) throws IOException {
+        String hash = String.valueOf(digit).repeat(64);
+        Files.createDirectories(UPLOADS);
+        Path file = Files.writeString(Files.createTempFile(UPLOADS, "test-", ".upload"), content);
+        fileSystemStorage.put(hash, file, Files.size(file));
+        jdbcTemplate.update("INSERT INTO avatar_blob (hash, size, ref_count) VALUES (?, ?, 1)", hash, content.length());
+        return hash;
+    }
+
+    private String content(String hash) throws IOException {
+        Resource resource = storage.get(hash);
+        assertThat(resource).isNotNull();
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
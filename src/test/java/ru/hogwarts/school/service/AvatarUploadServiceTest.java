@@ -0,0 +1,71 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.dto.AvatarUploadDto;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.storage.FileSystemAvatarStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Completes uploads against their own H2 database and avatars folder, with the filesystem storage,
+ * which moves the file it stores.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:uploads",
+        "spring.liquibase.enabled=false",
+        "path.to.avatars.folder=target/test-avatars/uploads",
+        "avatar.storage.mode=filesystem"})
+public class AvatarUploadServiceTest {
+    private static final Path PARTS = Path.of("target/test-avatars/uploads/uploads");
+
+    @Autowired
+    AvatarUploadService uploadService;
+    @Autowired
+    AvatarService avatarService;
+    @Autowired
+    StudentService studentService;
+    @Autowired
+    FileSystemAvatarStorage fileSystemStorage;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void rolledBackCompletionCanBeRetried() throws IOException {
+        Long studentId = studentService.create(new Student(null, "Upload", 17)).getId();
+        byte[] image = "resumable upload".getBytes(StandardCharsets.UTF_8);
+        AvatarUploadDto upload = uploadService.create(studentId, image.length, "image/png");
+        uploadService.write(upload.getId(), 0, image.length - 1, (long) image.length, new ByteArrayInputStream(image));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                uploadService.complete(upload.getId());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertThat(fileSystemStorage.keys()).isEmpty();
+        assertThat(Files.readAllBytes(PARTS.resolve(upload.getId() + ".part"))).isEqualTo(image);
+        assertThat(uploadService.get(upload.getId()).getOffset()).isEqualTo(image.length);
+
+        Avatar avatar = avatarService.getById(uploadService.complete(upload.getId()));
+
+        assertThat(Files.readAllBytes(fileSystemStorage.pathOf(avatar.getContentHash()))).isEqualTo(image);
+        assertThat(PARTS.resolve(upload.getId() + ".part")).doesNotExist();
+        assertThat(PARTS).isEmptyDirectory();
+    }
+}
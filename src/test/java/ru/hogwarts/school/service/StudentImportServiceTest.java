@@ -0,0 +1,103 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.hogwarts.school.dto.BulkImportErrorDto;
+import ru.hogwarts.school.dto.BulkImportResultDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Imports into their own H2 database in chunks of three rows, so a bad row shares its chunk with good ones.
+ * Each test uses its own name prefix to find the students it imported.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:import",
+        "spring.liquibase.enabled=false",
+        "student.bulk.chunk-size=3"})
+public class StudentImportServiceTest {
+    @Autowired
+    StudentImportService importService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void constraintViolationRejectsOnlyThatRow() throws IOException {
+        BulkImportResultDto result = importService.importCsv(stream(
+                "fk-1,17\nfk-2,18\nfk-3,19,999999\nfk-4,20\nfk-5,21\n"));
+
+        assertThat(result.getImported()).isEqualTo(4);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(BulkImportErrorDto::getRow, BulkImportErrorDto::getName)
+                .containsExactly(tuple(3L, "fk-3"));
+        assertThat(names("fk-")).containsExactly("fk-1", "fk-2", "fk-4", "fk-5");
+    }
+
+    @Test
+    void quotedCsvFields() throws IOException {
+        BulkImportResultDto result = importService.importCsv(stream(
+                "\"quoted-Potter, Harry\",17\n\"quoted-Ron \"\"Weasel\"\" Weasley\", 18 \n"));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(rows("quoted-")).containsExactly(
+                Map.of("NAME", "quoted-Potter, Harry", "AGE", 17),
+                Map.of("NAME", "quoted-Ron \"Weasel\" Weasley", "AGE", 18));
+    }
+
+    @Test
+    void headerReordersColumns() throws IOException {
+        BulkImportResultDto result = importService.importCsv(stream(
+                "Age,facultyId,Name\n19,,header-Hermione\nx,,header-Broken\n"));
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(BulkImportErrorDto::getRow, BulkImportErrorDto::getName)
+                .containsExactly(tuple(3L, "header-Broken"));
+        assertThat(rows("header-")).containsExactly(Map.of("NAME", "header-Hermione", "AGE", 19));
+    }
+
+    @Test
+    void nonObjectJsonElementIsRejectedAsItsRow() throws IOException {
+        BulkImportResultDto result = importService.importJson(stream(
+                "[{\"name\":\"json-1\",\"age\":17}, 5, {\"name\":\"json-2\",\"age\":18}, [1, {}], {\"name\":\"json-3\",\"age\":19}]"));
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(BulkImportErrorDto::getRow, BulkImportErrorDto::getError)
+                .containsExactly(tuple(2L, "invalid_row"), tuple(4L, "invalid_row"));
+        assertThat(names("json-")).containsExactly("json-1", "json-2", "json-3");
+    }
+
+    @Test
+    void truncatedOrTrailingJsonIsMalformed() throws IOException {
+        BulkImportResultDto truncated = importService.importJson(stream("[{\"name\":\"cut-1\",\"age\":17},"));
+        BulkImportResultDto trailing = importService.importJson(stream(
+                "[{\"name\":\"cut-2\",\"age\":18}] {\"name\":\"cut-3\",\"age\":19}"));
+
+        assertThat(truncated.getErrors()).extracting(BulkImportErrorDto::getRow, BulkImportErrorDto::getError)
+                .containsExactly(tuple(2L, "malformed_input"));
+        assertThat(trailing.getErrors()).extracting(BulkImportErrorDto::getRow, BulkImportErrorDto::getError)
+                .containsExactly(tuple(2L, "malformed_input"));
+        assertThat(names("cut-")).containsExactly("cut-1", "cut-2");
+    }
+
+    private List<String> names(String prefix) {
+        return jdbcTemplate.queryForList("SELECT name FROM student WHERE name LIKE ? ORDER BY id", String.class,
+                prefix + "%");
+    }
+
+    private List<Map<String, Object>> rows(String prefix) {
+        return jdbcTemplate.queryForList("SELECT name, age FROM student WHERE name LIKE ? ORDER BY id", prefix + "%");
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,59 @@
+package ru.hogwarts.school.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The {@code tiered} mode with images going cold a millisecond after their last read, so the
+ * {@link TieredAvatarStorage#demote()} pass the test runs itself moves them right away.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tiered",
+        "spring.liquibase.enabled=false",
+        "path.to.avatars.folder=target/test-avatars/tiered",
+        "avatar.storage.mode=tiered",
+        "avatar.storage.tiered.cold-after=1ms"})
+public class TieredAvatarStorageTest {
+    private static final Path UPLOADS = Path.of("target/test-avatars/tiered");
+
+    @Autowired
+    AvatarStorage storage;
+    @Autowired
+    FileSystemAvatarStorage hot;
+    @Autowired
+    DatabaseAvatarStorage cold;
+
+    @Test
+    void coldImageIsDemotedAndPromotedOnRead() throws Exception {
+        String key = "c".repeat(64);
+        Files.createDirectories(UPLOADS);
+        Path file = Files.writeString(Files.createTempFile(UPLOADS, "test-", ".upload"), "tiered image");
+        storage.put(key, file, Files.size(file));
+        assertThat(hot.contains(key)).isTrue();
+
+        Thread.sleep(10);
+        ((TieredAvatarStorage) storage).demote();
+
+        assertThat(hot.contains(key)).isFalse();
+        assertThat(cold.contains(key)).isTrue();
+        assertThat(storage.contains(key)).isTrue();
+
+        Resource content = storage.get(key);
+
+        assertThat(hot.contains(key)).isTrue();
+        assertThat(cold.contains(key)).isFalse();
+        try (InputStream in = content.getInputStream()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("tiered image");
+        }
+    }
+}
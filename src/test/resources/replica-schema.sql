@@ -0,0 +1,4 @@
+CREATE TABLE IF NOT EXISTS faculty (id BIGINT PRIMARY KEY, name VARCHAR(255), color VARCHAR(255), version BIGINT DEFAULT 0 NOT NULL);
+CREATE TABLE IF NOT EXISTS student (id BIGINT PRIMARY KEY, name VARCHAR(255), age INT NOT NULL, version BIGINT DEFAULT 0 NOT NULL, faculty_id BIGINT);
+CREATE TABLE IF NOT EXISTS table_version (name VARCHAR(64) PRIMARY KEY, version BIGINT NOT NULL);
+MERGE INTO student (id, name, age, faculty_id) VALUES (100, 'Replica', 30, NULL);